@@ -1,5 +1,6 @@
 package com.example.englishaiapp.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -24,6 +25,7 @@ public class SecurityConfig {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // SSE 等异步分派沿用原请求的认证结果
                 .requestMatchers("/api/auth/**").permitAll() // 认证接口公开
                 .requestMatchers(
                     "/swagger-ui/**",
@@ -3,21 +3,70 @@ package com.example.englishaiapp.controller;
 import com.example.englishaiapp.dto.ChatRequest;
 import com.example.englishaiapp.security.CustomUserDetails;
 import com.example.englishaiapp.service.QwenClient;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
 @RequestMapping("/api/ai")
 public class AIChatController {
 
+    // 系统提示词
+    private static final String SYSTEM_PROMPT = "你是一个专业的英语学习助手。用户会向你提问关于英语学习的问题，" +
+            "包括单词用法、语法、句型、翻译等。请用简洁、友好的中文回答，" +
+            "回答要准确、实用，适合英语学习者。" +
+            "重要：回答尽量简洁，最好50字以内，最多不超过200字。直接给出核心要点，不要冗余的客套话。";
+
     @Autowired
     private QwenClient qwenClient;
 
+    @Value("${ai.chat.stream.threads:16}")
+    private int streamThreads;
+
+    @Value("${ai.chat.stream.queue-capacity:32}")
+    private int streamQueueCapacity;
+
+    @Value("${ai.chat.stream.timeout:60000}")
+    private long streamTimeoutMillis;
+
+    // 每个进行中的流占用一个线程，读取千问响应并推送给浏览器
+    private ThreadPoolExecutor chatStreamExecutor;
+
+    @PostConstruct
+    public void initStreamExecutor() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        chatStreamExecutor = new ThreadPoolExecutor(
+                streamThreads, streamThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(streamQueueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "chat-stream-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        chatStreamExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdownStreamExecutor() {
+        chatStreamExecutor.shutdownNow();
+    }
+
     /**
      * AI 聊天接口 - 简单的问答助手
      */
@@ -27,14 +76,8 @@ public class AIChatController {
             @RequestBody ChatRequest request) {
         
         try {
-            // 构建系统提示词
-            String systemPrompt = "你是一个专业的英语学习助手。用户会向你提问关于英语学习的问题，" +
-                    "包括单词用法、语法、句型、翻译等。请用简洁、友好的中文回答，" +
-                    "回答要准确、实用，适合英语学习者。" +
-                    "重要：回答尽量简洁，最好50字以内，最多不超过200字。直接给出核心要点，不要冗余的客套话。";
-
             // 调用千问 API
-            String reply = qwenClient.chat(systemPrompt, request.getMessage());
+            String reply = qwenClient.chat(SYSTEM_PROMPT, request.getMessage());
 
             Map<String, String> response = new HashMap<>();
             response.put("reply", reply);
@@ -47,4 +90,58 @@ public class AIChatController {
             return ResponseEntity.status(500).body(error);
         }
     }
+
+    /**
+     * AI 聊天流式接口 - 通过 SSE 逐段推送回复
+     * 事件：delta（{"delta": 新增文本}）、done（结束）、error（{"message", "code"}）
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatStream(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestBody ChatRequest request) {
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        // 浏览器断开或超时后停止读取千问响应，尽早释放连接
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        emitter.onCompletion(() -> cancelled.set(true));
+        emitter.onTimeout(() -> cancelled.set(true));
+        emitter.onError(e -> cancelled.set(true));
+
+        try {
+            chatStreamExecutor.execute(() -> {
+                try {
+                    qwenClient.chatStream(SYSTEM_PROMPT, request.getMessage(), delta -> {
+                        try {
+                            emitter.send(SseEmitter.event().name("delta").data(Map.of("delta", delta)));
+                        } catch (IOException e) {
+                            cancelled.set(true);
+                        }
+                    }, cancelled::get);
+
+                    if (!cancelled.get()) {
+                        emitter.send(SseEmitter.event().name("done").data(""));
+                        emitter.complete();
+                    }
+                } catch (Exception e) {
+                    sendStreamError(emitter, "AI 回复失败: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            sendStreamError(emitter, "AI 助手繁忙，请稍后再试");
+        }
+
+        return emitter;
+    }
+
+    private void sendStreamError(SseEmitter emitter, String message) {
+        try {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", message);
+            error.put("code", "CHAT_FAILED");
+            emitter.send(SseEmitter.event().name("error").data(error));
+            emitter.complete();
+        } catch (Exception ignored) {
+            // 客户端已断开
+        }
+    }
 }
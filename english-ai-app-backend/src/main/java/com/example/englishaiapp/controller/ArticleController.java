@@ -1,10 +1,13 @@
 package com.example.englishaiapp.controller;
 
 import com.example.englishaiapp.dto.ArticleResponse;
+import com.example.englishaiapp.dto.WordProgressBatchRequest;
 import com.example.englishaiapp.dto.WordProgressRequest;
 import com.example.englishaiapp.security.CustomUserDetails;
 import com.example.englishaiapp.service.ArticleService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -19,15 +22,25 @@ public class ArticleController {
     @Autowired
     private ArticleService articleService;
 
+    // 定制文章直接返回生成时预编码的 JSON
+    @Value("${article.response.pre-encoded:true}")
+    private boolean preEncodedResponses;
+
     @GetMapping("/next")
     public ResponseEntity<?> getNextArticle(
             @AuthenticationPrincipal CustomUserDetails userDetails,
-            @RequestParam(defaultValue = "generic") String type) {
+            @RequestParam(defaultValue = "generic") String type,
+            @RequestParam(required = false) String difficulty) {
         
         try {
             Long userId = userDetails.getId();
 
-            ArticleResponse response = articleService.getNextArticle(userId, type);
+            if (preEncodedResponses && "custom".equalsIgnoreCase(type)) {
+                String json = articleService.getNextCustomArticleJson(userId);
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+            }
+
+            ArticleResponse response = articleService.getNextArticle(userId, type, difficulty);
             return ResponseEntity.ok(response);
             
         } catch (RuntimeException e) {
@@ -113,4 +126,36 @@ public class ArticleController {
             return ResponseEntity.status(500).body(error);
         }
     }
+
+    /**
+     * 批量提交一篇文章的单词答题进度
+     */
+    @PostMapping("/progress/batch")
+    public ResponseEntity<?> updateWordProgressBatch(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestBody WordProgressBatchRequest request) {
+
+        try {
+            Long userId = userDetails.getId();
+
+            if (request.getArticleId() == null) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "缺少 articleId 参数");
+                error.put("code", "INVALID_REQUEST");
+                return ResponseEntity.badRequest().body(error);
+            }
+
+            articleService.updateWordProgressBatch(userId, request.getArticleId(), request.getItems());
+
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "单词进度已更新");
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            error.put("code", "UPDATE_FAILED");
+            return ResponseEntity.status(500).body(error);
+        }
+    }
 }
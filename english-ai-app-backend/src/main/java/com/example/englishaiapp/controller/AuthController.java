@@ -5,6 +5,8 @@ import com.example.englishaiapp.dto.LoginRequest;
 import com.example.englishaiapp.dto.RegisterRequest;
 import com.example.englishaiapp.repository.UserRepository;
 import com.example.englishaiapp.security.CustomUserDetails;
+import com.example.englishaiapp.service.LeaderboardIndex;
+import com.example.englishaiapp.util.TransactionCallbacks;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -29,6 +31,9 @@ public class AuthController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private LeaderboardIndex leaderboardIndex;
+
     /**
      * 用户注册
      */
@@ -60,6 +65,8 @@ public class AuthController {
             user.setArticlesUnlocked(false); // 默认未解锁定制文章
 
             userRepository.save(user);
+            // 与其他修改经验值的地方一致：提交后再更新排行榜（此处没有外层事务时立即执行）
+            TransactionCallbacks.afterCommit(() -> leaderboardIndex.update(user));
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "注册成功");
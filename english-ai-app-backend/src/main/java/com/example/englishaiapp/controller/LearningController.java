@@ -1,36 +1,94 @@
 package com.example.englishaiapp.controller;
 
 import com.example.englishaiapp.domain.Word;
+import com.example.englishaiapp.dto.LearningResult;
+import com.example.englishaiapp.dto.LearningResultBatchRequest;
 import com.example.englishaiapp.dto.WordDTO;
 import com.example.englishaiapp.service.LearningService;
+import com.example.englishaiapp.service.LearningWriteBehindBuffer;
+import com.example.englishaiapp.service.WordDictionary;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import com.example.englishaiapp.security.CustomUserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/learn")
 public class LearningController {
+
+    // 单次批量提交的最大条数
+    private static final int MAX_BATCH_SIZE = 200;
     
     @Autowired
     private LearningService learningService;
 
+    @Autowired
+    private LearningWriteBehindBuffer learningWriteBehindBuffer;
+
+    @Autowired
+    private WordDictionary wordDictionary;
+
+    // 学习任务响应使用预先编码的单词 JSON
+    @Value("${learning.session.pre-encoded:true}")
+    private boolean preEncodedSession;
+
     @GetMapping("/session")
-    public ResponseEntity<List<WordDTO>> getLearningSession(
+    public ResponseEntity<?> getLearningSession(
             @AuthenticationPrincipal CustomUserDetails userDetails,
             @RequestParam(defaultValue = "20") int limit) {
         
         Long userId = userDetails.getId(); 
 
+        // 先写入缓冲中该用户尚未写库的提交
+        learningWriteBehindBuffer.flushUser(userId);
         List<Word> words = learningService.getLearningSession(userId, limit);
+
+        if (preEncodedSession) {
+            // 直接拼接词典中预先编码好的单词 JSON，不再逐个序列化 WordDTO
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(concatJson(words));
+        }
         List<WordDTO> wordDTOs = words.stream().map(WordDTO::new).collect(Collectors.toList());
         return ResponseEntity.ok(wordDTOs);
     }
 
+    /**
+     * 拼接成 JSON 数组，一次分配好最终大小
+     */
+    byte[] concatJson(List<Word> words) {
+        List<byte[]> fragments = new ArrayList<>(words.size());
+        int length = 2 + Math.max(0, words.size() - 1);
+        for (Word word : words) {
+            byte[] fragment = wordDictionary.json(word);
+            fragments.add(fragment);
+            length += fragment.length;
+        }
+
+        byte[] body = new byte[length];
+        int position = 0;
+        body[position++] = '[';
+        for (int i = 0; i < fragments.size(); i++) {
+            if (i > 0) {
+                body[position++] = ',';
+            }
+            byte[] fragment = fragments.get(i);
+            System.arraycopy(fragment, 0, body, position, fragment.length);
+            position += fragment.length;
+        }
+        body[position] = ']';
+        return body;
+    }
+
     @PostMapping("/submit")
     public ResponseEntity<?> submitLearningResult(
             @AuthenticationPrincipal CustomUserDetails userDetails,
@@ -38,16 +96,83 @@ public class LearningController {
 
         Long userId = userDetails.getId();
 
-        learningService.submitLearningResult(userId, request.getWordId(), request.isCorrect());
+        if (!isKnownWord(request.getWordId())) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "wordId 不能为空且必须是已有单词");
+            error.put("code", "INVALID_REQUEST");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (learningWriteBehindBuffer.isEnabled()) {
+            // 写回模式：记入日志后返回，由后台合并写库
+            learningWriteBehindBuffer.submit(userId, request.getWordId(), request.isCorrect());
+        } else {
+            learningService.submitLearningResult(userId, request.getWordId(), request.isCorrect());
+        }
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * 批量提交一组学习结果（例如一次学习任务结束后或离线缓存的答题）
+     */
+    @PostMapping("/submit/batch")
+    public ResponseEntity<?> submitLearningResults(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestBody LearningResultBatchRequest request) {
+
+        Long userId = userDetails.getId();
+
+        List<LearningResult> results = request.getResults();
+        if (results == null || results.isEmpty() || results.size() > MAX_BATCH_SIZE
+                || results.stream().anyMatch(result -> !isKnownWord(result.getWordId()))) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "results 不能为空，最多 " + MAX_BATCH_SIZE + " 条，且每条都需要已有单词的 wordId");
+            error.put("code", "INVALID_REQUEST");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        // 缓冲中还有该用户的提交时先写库，保证顺序
+        learningWriteBehindBuffer.flushUser(userId);
+        learningService.applyLearningResults(userId, normalizeAnsweredAt(results));
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * 校验 wordId：写回模式下无效的 wordId 会让整批结果反复写库失败
+     */
+    private boolean isKnownWord(Long wordId) {
+        return wordId != null && wordDictionary.get(wordId).isPresent();
+    }
+
+    /**
+     * 整理答题时间：缺失或晚于服务器当前时间的按当前时间处理，
+     * 并保证按提交顺序严格递增（相同时间的两次答题会被当作重复而跳过）
+     */
+    private List<LearningResult> normalizeAnsweredAt(List<LearningResult> results) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<LearningResult> normalized = new ArrayList<>(results.size());
+        LocalDateTime previous = null;
+        for (LearningResult result : results) {
+            LocalDateTime answeredAt = result.getAnsweredAt();
+            if (answeredAt == null || answeredAt.isAfter(now)) {
+                answeredAt = now;
+            }
+            if (previous != null && !answeredAt.isAfter(previous)) {
+                answeredAt = previous.plus(1, ChronoUnit.MICROS);
+            }
+            normalized.add(new LearningResult(result.getWordId(), result.isCorrect(), answeredAt));
+            previous = answeredAt;
+        }
+        return normalized;
+    }
+
     @GetMapping("/strange-count")
     public ResponseEntity<Integer> getStrangeWordCount(
             @AuthenticationPrincipal CustomUserDetails userDetails) {
         
         Long userId = userDetails.getId();
 
+        learningWriteBehindBuffer.flushUser(userId);
         int count = learningService.getStrangeWordCount(userId);
         return ResponseEntity.ok(count);
     }
@@ -0,0 +1,59 @@
+package com.example.englishaiapp.controller;
+
+import com.example.englishaiapp.service.ArticleContentCache;
+import com.example.englishaiapp.service.ArticlePrefillWorker;
+import com.example.englishaiapp.service.LeaderboardIndex;
+import com.example.englishaiapp.service.LearningSessionCache;
+import com.example.englishaiapp.service.LearningWriteBehindBuffer;
+import com.example.englishaiapp.service.QwenGovernor;
+import com.example.englishaiapp.service.QwenResilience;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 后台组件运行指标
+ */
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    @Autowired
+    private ArticlePrefillWorker articlePrefillWorker;
+
+    @Autowired
+    private ArticleContentCache articleContentCache;
+
+    @Autowired
+    private QwenGovernor qwenGovernor;
+
+    @Autowired
+    private QwenResilience qwenResilience;
+
+    @Autowired
+    private LearningWriteBehindBuffer learningWriteBehindBuffer;
+
+    @Autowired
+    private LearningSessionCache learningSessionCache;
+
+    @Autowired
+    private LeaderboardIndex leaderboardIndex;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("articlePrefill", articlePrefillWorker.metrics());
+        metrics.put("articleContentCache", articleContentCache.metrics());
+        metrics.put("qwenGovernor", qwenGovernor.metrics());
+        metrics.put("qwenResilience", qwenResilience.metrics());
+        metrics.put("learningWriteBehind", learningWriteBehindBuffer.metrics());
+        metrics.put("learningSessionPrefetch", learningSessionCache.metrics());
+        metrics.put("leaderboard", leaderboardIndex.metrics());
+        return ResponseEntity.ok(metrics);
+    }
+}
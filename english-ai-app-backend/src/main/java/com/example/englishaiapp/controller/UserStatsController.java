@@ -14,6 +14,9 @@ import java.util.Map;
 @RequestMapping("/api/user")
 public class UserStatsController {
 
+    // 排行榜前 N 名最多返回的人数
+    private static final int MAX_TOP_LIMIT = 100;
+
     @Autowired
     private UserStatsService userStatsService;
 
@@ -76,4 +79,27 @@ public class UserStatsController {
             return ResponseEntity.status(500).body(error);
         }
     }
+
+    /**
+     * 获取排行榜前 N 名
+     */
+    @GetMapping("/leaderboard/top")
+    public ResponseEntity<?> getLeaderboardTop(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (userDetails == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "未登录或会话已过期，请重新登录。");
+            return ResponseEntity.status(401).body(error);
+        }
+        try {
+            int clamped = Math.max(1, Math.min(limit, MAX_TOP_LIMIT));
+            Map<String, Object> top = userStatsService.getLeaderboardTop(clamped);
+            return ResponseEntity.ok(top);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "获取排行榜失败: " + e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
 }
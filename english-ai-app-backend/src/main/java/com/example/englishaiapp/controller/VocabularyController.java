@@ -21,7 +21,8 @@ public class VocabularyController {
     public ResponseEntity<?> getMyVocabulary(
             @AuthenticationPrincipal CustomUserDetails userDetails,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "50") int size) {
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String cursor) {
         
         if (userDetails == null) {
             Map<String, String> error = new HashMap<>();
@@ -30,11 +31,18 @@ public class VocabularyController {
         }
 
         try {
-            Map<String, Object> result = vocabularyService.getUserVocabulary(
-                    userDetails.getUserId(), page, size);
+            // 带 cursor 参数（第一页传空值）时使用游标分页，深分页不需要跳过前面的行
+            Map<String, Object> result = cursor != null
+                    ? vocabularyService.getUserVocabularyAfter(userDetails.getUserId(), cursor, size)
+                    : vocabularyService.getUserVocabulary(userDetails.getUserId(), page, size);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
+            if ("INVALID_CURSOR".equals(e.getMessage())) {
+                error.put("message", "分页游标无效");
+                error.put("code", "INVALID_CURSOR");
+                return ResponseEntity.badRequest().body(error);
+            }
             error.put("message", "获取词库失败: " + e.getMessage());
             return ResponseEntity.status(500).body(error);
         }
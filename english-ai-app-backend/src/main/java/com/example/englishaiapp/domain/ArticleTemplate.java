@@ -1,6 +1,7 @@
 package com.example.englishaiapp.domain;
 
 import jakarta.persistence.*;
+import com.example.englishaiapp.service.ArticleTemplateChangeListener;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
 
@@ -9,6 +10,7 @@ import java.time.LocalDateTime;
 @Data
 @Entity
 @Table(name = "article_templates")
+@EntityListeners(ArticleTemplateChangeListener.class)
 public class ArticleTemplate {
 
     @Id
@@ -50,11 +50,16 @@ public class User {
     @Column(columnDefinition = "INT DEFAULT 0")
     private Integer wordsMastered = 0;
 
-    @Column(columnDefinition = "BIGINT DEFAULT 0")
+    // 只由 UserRepository.advanceLearningIndex 的条件 UPDATE 推进；保存整个用户时不写这一列，
+    // 否则实体里读到的旧值会把并发预取刚推进的指针改回去
+    @Column(columnDefinition = "BIGINT DEFAULT 0", updatable = false)
     private Long learningIndex = 0L; // 学习队列指针
 
     @Column(columnDefinition = "TEXT")
-    private String recentWordIds = "[]"; // 最近5个单词的ID（JSON格式）
+    private String recentWordIds; // 旧格式：最近5个单词的ID（JSON格式），读取时转换为 recentWordRing 后清空
+
+    @Column(name = "recent_word_ring", columnDefinition = "VARBINARY(2048)")
+    private byte[] recentWordRing; // 最近学习的单词ID（每个 8 字节，从旧到新，见 RecentWordRing）
 
     @Column(columnDefinition = "BOOLEAN DEFAULT FALSE")
     private Boolean articlesUnlocked = false; // 是否解锁定制文章（学习满16个单词后解锁）
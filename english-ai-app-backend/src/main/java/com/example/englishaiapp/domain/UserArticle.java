@@ -27,6 +27,10 @@ public class UserArticle {
     @Column(name = "word_bank_json", columnDefinition = "TEXT")
     private String wordBankJson;
 
+    // 生成时预先编码好的响应 JSON（不含 articleId，单词状态为占位符，取用时再填入）
+    @Column(name = "response_json", columnDefinition = "MEDIUMTEXT")
+    private String responseJson;
+
     @Column(nullable = false)
     private String status = "READY"; // READY, COMPLETED
 
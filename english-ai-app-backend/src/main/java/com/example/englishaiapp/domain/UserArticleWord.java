@@ -0,0 +1,43 @@
+package com.example.englishaiapp.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * 定制文章单词库中的一个单词及其答题状态
+ * 每次答题只更新对应的一行，不再整体改写文章的 word_bank_json
+ */
+@Data
+@Entity
+@Table(name = "user_article_words", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"article_id", "word"})
+})
+public class UserArticleWord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "article_id", nullable = false)
+    private Long articleId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "word_id")
+    private Long wordId;
+
+    @Column(nullable = false)
+    private String word;
+
+    @Column(columnDefinition = "TEXT")
+    private String meaning;
+
+    private Integer masteryScore; // 生成文章时的掌握度
+
+    @Column(nullable = false)
+    private String state = "unused"; // unused, correct, wrong
+
+    @Column(nullable = false)
+    private Integer position; // 在单词库中的顺序（已打乱）
+}
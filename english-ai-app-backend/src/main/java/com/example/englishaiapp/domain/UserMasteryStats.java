@@ -0,0 +1,33 @@
+package com.example.englishaiapp.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * 用户单词掌握度分布（按掌握度分档计数）
+ * 掌握度变化时在同一事务中按增量更新，首次读取时按 user_word_mastery 汇总初始化
+ */
+@Data
+@Entity
+@Table(name = "user_mastery_stats")
+public class UserMasteryStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(columnDefinition = "INT DEFAULT 0")
+    private Integer weakWords = 0; // 分数 < 1
+
+    @Column(columnDefinition = "INT DEFAULT 0")
+    private Integer learningWords = 0; // 1 <= 分数 < 3
+
+    @Column(columnDefinition = "INT DEFAULT 0")
+    private Integer masteredWords = 0; // 分数 >= 3
+
+    @Column(columnDefinition = "INT DEFAULT 0")
+    private Integer strangeWords = 0; // 分数 < 6（陌生单词）
+
+    @Column(columnDefinition = "INT DEFAULT 0")
+    private Integer totalWords = 0;
+}
@@ -11,6 +11,9 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "user_word_mastery", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"user_id", "word_id"})
+}, indexes = {
+    @Index(name = "idx_user_word_mastery_due", columnList = "user_id, next_due_at"),
+    @Index(name = "idx_user_word_mastery_score", columnList = "user_id, mastery_score, id")
 })
 public class UserWordMastery {
 
@@ -31,6 +34,19 @@ public class UserWordMastery {
 
     private LocalDateTime lastSeenAt;
 
+    // 复习调度（见 ReviewScheduler）：下次复习时间，为空表示不安排复习
+    @Column(name = "next_due_at")
+    private LocalDateTime nextDueAt;
+
+    @Column(columnDefinition = "DOUBLE DEFAULT 2.5")
+    private Double easeFactor = 2.5; // 难度系数（SM-2）
+
+    @Column(columnDefinition = "INT DEFAULT 0")
+    private Integer repetitions = 0; // 连续答对次数
+
+    @Column(columnDefinition = "INT DEFAULT 0")
+    private Integer intervalDays = 0; // 当前复习间隔（天）
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
@@ -0,0 +1,21 @@
+package com.example.englishaiapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一次单词答题结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LearningResult {
+    private Long wordId;
+    @JsonAlias("isCorrect")
+    private boolean correct;
+    private LocalDateTime answeredAt; // 答题时间，用于排序和去重
+}
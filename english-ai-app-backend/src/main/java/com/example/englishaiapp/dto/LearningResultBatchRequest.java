@@ -0,0 +1,10 @@
+package com.example.englishaiapp.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class LearningResultBatchRequest {
+    private List<LearningResult> results; // 按答题顺序排列；answeredAt 可为空（按收到的时间处理）
+}
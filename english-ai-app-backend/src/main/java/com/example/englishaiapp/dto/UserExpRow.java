@@ -0,0 +1,17 @@
+package com.example.englishaiapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 排行榜重建时按批读取的用户经验相关字段（JPQL 构造表达式投影）
+ */
+@Data
+@AllArgsConstructor
+public class UserExpRow {
+    private Long userId;
+    private String nickname;
+    private Integer totalWordsLearned;
+    private Integer wordsMastered;
+    private Integer totalCheckinDays;
+}
@@ -0,0 +1,43 @@
+package com.example.englishaiapp.dto;
+
+import com.example.englishaiapp.domain.Word;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 词库列表中的一项
+ * 由 JPQL 构造表达式只投影掌握度的几列，单词字段再从 WordDictionary 补齐
+ */
+@Data
+public class VocabularyItem {
+    @JsonIgnore
+    private Long masteryId; // 游标用
+    private Long id;
+    private String word;
+    private String translation;
+    private String phonetic;
+    private String definition;
+    private String exampleSentence;
+    private Integer masteryScore;
+    private int correctCount;
+    private int incorrectCount;
+    private LocalDateTime lastLearnedAt;
+    private String masteryLevel;
+
+    public VocabularyItem(Long masteryId, Long wordId, Integer masteryScore, LocalDateTime lastLearnedAt) {
+        this.masteryId = masteryId;
+        this.id = wordId;
+        this.masteryScore = masteryScore;
+        this.lastLearnedAt = lastLearnedAt;
+    }
+
+    public void fillWord(Word word) {
+        this.word = word.getWord();
+        this.translation = word.getMeaning();
+        this.phonetic = word.getPhonetic();
+        this.definition = word.getMeaning();
+        this.exampleSentence = word.getExampleSentence();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.englishaiapp.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class WordProgressBatchRequest {
+    private Long articleId;
+    private List<Item> items; // 按答题顺序排列，同一单词可出现多次
+
+    @Data
+    public static class Item {
+        private String word;
+        private String state; // "correct" or "wrong"
+    }
+}
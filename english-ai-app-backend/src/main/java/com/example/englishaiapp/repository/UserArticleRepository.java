@@ -2,6 +2,8 @@ package com.example.englishaiapp.repository;
 
 import com.example.englishaiapp.domain.UserArticle;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -18,4 +20,9 @@ public interface UserArticleRepository extends JpaRepository<UserArticle, Long>
 
     // 查询用户最早的一篇 READY 文章
     Optional<UserArticle> findFirstByUserIdAndStatusOrderByCreatedAtAsc(Long userId, String status);
+
+    // 认领旧文章的单词库迁移：只有把 word_bank_json 从非空改为空的那个事务返回 1
+    @Modifying
+    @Query("UPDATE UserArticle a SET a.wordBankJson = NULL WHERE a.id = :id AND a.wordBankJson IS NOT NULL")
+    int claimLegacyWordBank(Long id);
 }
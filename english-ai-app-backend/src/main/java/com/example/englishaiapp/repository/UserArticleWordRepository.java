@@ -0,0 +1,45 @@
+package com.example.englishaiapp.repository;
+
+import com.example.englishaiapp.domain.UserArticleWord;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserArticleWordRepository extends JpaRepository<UserArticleWord, Long> {
+
+    // 按单词库顺序获取文章的所有单词
+    List<UserArticleWord> findByArticleIdOrderByPositionAsc(Long articleId);
+
+    // 加锁读取文章的所有单词（读到最新提交的行，用于等待并发的迁移完成）
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT w FROM UserArticleWord w WHERE w.articleId = :articleId ORDER BY w.position")
+    List<UserArticleWord> findByArticleIdForShare(Long articleId);
+
+    // 只取文章各单词的答题状态（按单词库顺序）
+    @Query("SELECT w.state FROM UserArticleWord w WHERE w.articleId = :articleId ORDER BY w.position")
+    List<String> findStatesByArticleId(Long articleId);
+
+    // 获取用户某篇文章的所有单词
+    List<UserArticleWord> findByArticleIdAndUserIdOrderByPositionAsc(Long articleId, Long userId);
+
+    // 查找用户文章中的某个单词（不区分大小写，依赖表的 _ci 排序规则）
+    Optional<UserArticleWord> findByArticleIdAndUserIdAndWord(Long articleId, Long userId, String word);
+
+    // 只更新一行的答题状态
+    @Modifying
+    @Query("UPDATE UserArticleWord w SET w.state = :state WHERE w.id = :id")
+    int updateState(Long id, String state);
+
+    // 批量更新为同一状态
+    @Modifying
+    @Query("UPDATE UserArticleWord w SET w.state = :state WHERE w.id IN :ids")
+    int updateStates(Collection<Long> ids, String state);
+}
@@ -0,0 +1,35 @@
+package com.example.englishaiapp.repository;
+
+import com.example.englishaiapp.domain.UserMasteryStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserMasteryStatsRepository extends JpaRepository<UserMasteryStats, Long> {
+
+    // 还没有统计行时按现有掌握度记录汇总初始化（已存在则忽略）
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_mastery_stats "
+            + "(user_id, weak_words, learning_words, mastered_words, strange_words, total_words) "
+            + "SELECT :userId, "
+            + "COALESCE(SUM(CASE WHEN m.mastery_score < 1 THEN 1 ELSE 0 END), 0), "
+            + "COALESCE(SUM(CASE WHEN m.mastery_score >= 1 AND m.mastery_score < 3 THEN 1 ELSE 0 END), 0), "
+            + "COALESCE(SUM(CASE WHEN m.mastery_score >= 3 THEN 1 ELSE 0 END), 0), "
+            + "COALESCE(SUM(CASE WHEN m.mastery_score < 6 THEN 1 ELSE 0 END), 0), "
+            + "COUNT(*) "
+            + "FROM user_word_mastery m WHERE m.user_id = :userId", nativeQuery = true)
+    int initializeFromMastery(Long userId);
+
+    // 按增量更新各档计数（统计行不存在时不更新，由初始化汇总得到）
+    // 用原生 SQL：JPQL 会按 columnDefinition 生成 cast(? as INT DEFAULT 0)，数据库无法解析
+    @Modifying
+    @Query(value = "UPDATE user_mastery_stats SET weak_words = weak_words + :weak, "
+            + "learning_words = learning_words + :learning, "
+            + "mastered_words = mastered_words + :mastered, "
+            + "strange_words = strange_words + :strange, "
+            + "total_words = total_words + :total "
+            + "WHERE user_id = :userId", nativeQuery = true)
+    int applyDelta(Long userId, int weak, int learning, int mastered, int strange, int total);
+}
@@ -1,9 +1,14 @@
 package com.example.englishaiapp.repository;
 
 import com.example.englishaiapp.domain.User;
+import com.example.englishaiapp.dto.UserExpRow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +17,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
     Optional<User> findByEmail(String email);
+
+    // 推进学习指针（只前进不后退，只更新这一列）
+    @Modifying
+    @Query("UPDATE User u SET u.learningIndex = :learningIndex WHERE u.id = :id AND u.learningIndex < :learningIndex")
+    int advanceLearningIndex(Long id, Long learningIndex);
+
+    // 按ID分批读取排行榜需要的字段（只投影这几列）
+    @Query("SELECT new com.example.englishaiapp.dto.UserExpRow(u.id, u.nickname, u.totalWordsLearned, u.wordsMastered, u.totalCheckinDays) "
+            + "FROM User u WHERE u.id > :afterId ORDER BY u.id ASC")
+    List<UserExpRow> findExpRowsAfter(Long afterId, Pageable pageable);
 }
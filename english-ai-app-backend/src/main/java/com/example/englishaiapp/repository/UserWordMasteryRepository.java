@@ -1,13 +1,17 @@
 package com.example.englishaiapp.repository;
 
 import com.example.englishaiapp.domain.UserWordMastery;
+import com.example.englishaiapp.dto.VocabularyItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,20 +20,54 @@ public interface UserWordMasteryRepository extends JpaRepository<UserWordMastery
 
     Optional<UserWordMastery> findByUserIdAndWordId(Long userId, Long wordId);
 
-    // 查询需要复习的单词（分数 < 6，且不在最近5个中）
-    @Query("SELECT m FROM UserWordMastery m WHERE m.userId = :userId AND m.masteryScore < 6 AND m.wordId NOT IN :recentWordIds ORDER BY m.masteryScore ASC, m.lastLearnedAt ASC")
-    List<UserWordMastery> findReviewWords(Long userId, List<Long> recentWordIds, Pageable pageable);
+    // 一次查询用户的多个单词掌握度
+    List<UserWordMastery> findByUserIdAndWordIdIn(Long userId, Collection<Long> wordIds);
 
-    // 统计陈生单词数量（分数 < 6）
-    long countByUserIdAndMasteryScoreLessThan(Long userId, Integer masteryScore);
+    // 查询到期需要复习的单词（按到期时间先后，且不在最近5个中），走 (user_id, next_due_at) 索引
+    @Query("SELECT m FROM UserWordMastery m WHERE m.userId = :userId AND m.nextDueAt <= :now AND m.wordId NOT IN :recentWordIds ORDER BY m.nextDueAt ASC")
+    List<UserWordMastery> findDueWords(Long userId, LocalDateTime now, List<Long> recentWordIds, Pageable pageable);
+
+    // 为 next_due_at 为空的已有记录补齐复习调度（与 db/backfill_review_schedule.sql 一致），每次最多 limit 行
+    // 分数 < 6 的单词立即到期；已掌握的单词按 SM-2 第一次复习（1 天后）处理
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE user_word_mastery SET "
+            + "next_due_at = CASE WHEN mastery_score < 6 THEN COALESCE(last_learned_at, created_at) "
+            + "ELSE DATE_ADD(COALESCE(last_learned_at, created_at), INTERVAL 1 DAY) END, "
+            + "repetitions = CASE WHEN mastery_score < 6 THEN 0 ELSE 1 END, "
+            + "interval_days = CASE WHEN mastery_score < 6 THEN 0 ELSE 1 END "
+            + "WHERE next_due_at IS NULL LIMIT :limit", nativeQuery = true)
+    int backfillReviewSchedule(int limit);
+
+    // 按掌握度阈值调度时只补齐未掌握的单词（已掌握的单词 next_due_at 本来就为空），每次最多 limit 行
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE user_word_mastery SET next_due_at = COALESCE(last_learned_at, created_at) "
+            + "WHERE next_due_at IS NULL AND mastery_score < 6 LIMIT :limit", nativeQuery = true)
+    int backfillUnmasteredDue(int limit);
+
+    // 一组单词中用户已学过的单词ID
+    @Query("SELECT m.wordId FROM UserWordMastery m WHERE m.userId = :userId AND m.wordId IN :wordIds")
+    List<Long> findLearnedWordIds(Long userId, Collection<Long> wordIds);
+
+    // 批量更新最近出现时间（一条 UPDATE，同时维护 updatedAt）
+    @Modifying
+    @Query("UPDATE UserWordMastery m SET m.lastSeenAt = :seenAt, m.updatedAt = :seenAt WHERE m.id IN :ids")
+    int updateLastSeenAt(Collection<Long> ids, LocalDateTime seenAt);
 
     // 获取掌握度最低的前8个单词（用于生成文章）
     @Query("SELECT m FROM UserWordMastery m WHERE m.userId = :userId ORDER BY m.masteryScore ASC, m.lastLearnedAt ASC")
     List<UserWordMastery> findTop8ByUserIdOrderByMasteryScore(Long userId, Pageable pageable);
 
-    // 获取用户所有单词（分页）
-    Page<UserWordMastery> findByUserId(Long userId, Pageable pageable);
+    // 词库列表（按掌握度、ID 排序），只投影需要的列，走 (user_id, mastery_score, id) 索引
+    @Query("SELECT new com.example.englishaiapp.dto.VocabularyItem(m.id, m.wordId, m.masteryScore, m.lastLearnedAt) "
+            + "FROM UserWordMastery m WHERE m.userId = :userId ORDER BY m.masteryScore ASC, m.id ASC")
+    List<VocabularyItem> findVocabulary(Long userId, Pageable pageable);
 
-    // 获取用户所有单词（不分页）
-    List<UserWordMastery> findByUserId(Long userId);
+    // 词库列表的下一页：从游标 (masteryScore, id) 之后继续
+    @Query("SELECT new com.example.englishaiapp.dto.VocabularyItem(m.id, m.wordId, m.masteryScore, m.lastLearnedAt) "
+            + "FROM UserWordMastery m WHERE m.userId = :userId "
+            + "AND (m.masteryScore > :masteryScore OR (m.masteryScore = :masteryScore AND m.id > :id)) "
+            + "ORDER BY m.masteryScore ASC, m.id ASC")
+    List<VocabularyItem> findVocabularyAfter(Long userId, Integer masteryScore, Long id, Pageable pageable);
 }
@@ -0,0 +1,177 @@
+package com.example.englishaiapp.service;
+
+import com.example.englishaiapp.util.SingleFlight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 生成文章内容缓存
+ * key 为「排序后的单词ID集合 + 难度」，只缓存与用户无关的标题和正文；
+ * 单词库（掌握度、打乱顺序）仍在取用时按用户构建
+ *
+ * 复用策略：
+ * - 同一个 key 最多保留 max-variants 篇不同文章
+ * - 每篇文章最多复用 max-reuse 次，超过有效期后丢弃
+ * - 同一用户不会拿到自己已经拿过的那一篇
+ * - 同一个 key 同时未命中时只生成一次（见 getOrGenerate）
+ */
+@Component
+public class ArticleContentCache {
+
+    public record CachedArticle(String title, String content) {}
+
+    private static final class Variant {
+        final CachedArticle article;
+        final long createdAtNanos = System.nanoTime();
+        final Set<Long> servedUsers = new HashSet<>();
+
+        Variant(CachedArticle article) {
+            this.article = article;
+        }
+    }
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final int maxVariants;
+    private final int maxReuse;
+    private final long ttlNanos;
+
+    // 按访问顺序排列，超出容量时淘汰最久未使用的 key
+    private final LinkedHashMap<String, List<Variant>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // 按 key 合并同时未命中的生成
+    private final SingleFlight<String, CachedArticle> generations = new SingleFlight<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ArticleContentCache(@Value("${article.cache.enabled:true}") boolean enabled,
+                               @Value("${article.cache.max-entries:5000}") int maxEntries,
+                               @Value("${article.cache.max-variants:3}") int maxVariants,
+                               @Value("${article.cache.max-reuse:50}") int maxReuse,
+                               @Value("${article.cache.ttl:7d}") Duration ttl) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.maxVariants = maxVariants;
+        this.maxReuse = maxReuse;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public static String key(Collection<Long> wordIds, String difficulty) {
+        return wordIds.stream().sorted().map(String::valueOf).collect(Collectors.joining(","))
+                + "|" + difficulty.toLowerCase();
+    }
+
+    /**
+     * 为用户取一篇可复用的文章，并记为该用户已使用
+     */
+    public synchronized Optional<CachedArticle> get(String key, Long userId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Optional<CachedArticle> article = lookup(key, userId);
+        (article.isPresent() ? hits : misses).incrementAndGet();
+        return article;
+    }
+
+    // 查找并标记已使用，但不计入命中/未命中统计
+    private synchronized Optional<CachedArticle> lookup(String key, Long userId) {
+        List<Variant> variants = entries.get(key);
+        if (variants != null) {
+            long now = System.nanoTime();
+            Iterator<Variant> it = variants.iterator();
+            while (it.hasNext()) {
+                Variant variant = it.next();
+                if (now - variant.createdAtNanos > ttlNanos || variant.servedUsers.size() >= maxReuse) {
+                    it.remove();
+                } else if (variant.servedUsers.add(userId)) {
+                    return Optional.of(variant.article);
+                }
+            }
+            if (variants.isEmpty()) {
+                entries.remove(key);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 为用户取一篇可复用的文章；未命中时调用 generator 生成并存入
+     * 同一个 key 同时只会有一次生成在进行，同时未命中的用户等待并共享这一篇
+     */
+    public CachedArticle getOrGenerate(String key, Long userId, Supplier<CachedArticle> generator) {
+        Optional<CachedArticle> cached = get(key, userId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        // 进入合并后的复查只用于发现刚生成好的文章，上面的 get 已计过一次未命中
+        CachedArticle article = generations.execute(key, () -> lookup(key, userId).orElseGet(() -> {
+            CachedArticle generated = generator.get();
+            put(key, userId, generated.title(), generated.content());
+            return generated;
+        }));
+        markServed(key, userId, article);
+        return article;
+    }
+
+    /**
+     * 存入一篇新生成的文章（生成它的用户记为已使用）
+     */
+    public synchronized void put(String key, Long userId, String title, String content) {
+        if (!enabled) {
+            return;
+        }
+        List<Variant> variants = entries.computeIfAbsent(key, k -> new ArrayList<>());
+        if (variants.size() >= maxVariants) {
+            variants.remove(0);
+        }
+        Variant variant = new Variant(new CachedArticle(title, content));
+        variant.servedUsers.add(userId);
+        variants.add(variant);
+
+        if (entries.size() > maxEntries) {
+            Iterator<String> eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    // 合并等待到的文章也计入该用户的复用次数
+    private synchronized void markServed(String key, Long userId, CachedArticle article) {
+        List<Variant> variants = entries.get(key);
+        if (variants != null) {
+            for (Variant variant : variants) {
+                if (variant.article == article) {
+                    variant.servedUsers.add(userId);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 运行指标快照
+     */
+    public synchronized Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("entries", entries.size());
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        return metrics;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.englishaiapp.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 定制文章后台预生成线程池
+ * - 线程数和队列长度有上限，队列满时直接拒绝（由下一次触发重新补充）
+ * - 每个用户同一时刻最多一个任务在排队或执行，重复提交会被合并
+ */
+@Component
+public class ArticlePrefillWorker {
+
+    private enum JobState { QUEUED, RUNNING, RUNNING_AGAIN }
+
+    private final ThreadPoolExecutor executor;
+
+    // 用户ID -> 任务状态（不在表中表示空闲）
+    private final Map<Long, JobState> userJobs = new ConcurrentHashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public ArticlePrefillWorker(@Value("${article.prefill.threads:2}") int threads,
+                                @Value("${article.prefill.queue-capacity:200}") int queueCapacity) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "article-prefill-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交用户的补充任务
+     * @return 是否已接受（包括被合并到已有任务）；队列满时返回 false
+     */
+    public boolean submit(Long userId, Runnable job) {
+        boolean[] enqueue = {false};
+        userJobs.compute(userId, (id, state) -> {
+            if (state == null) {
+                enqueue[0] = true;
+                return JobState.QUEUED;
+            }
+            coalesced.incrementAndGet();
+            // 正在执行的任务结束后需要再跑一次，因为触发它的数据已经变化
+            return state == JobState.RUNNING ? JobState.RUNNING_AGAIN : state;
+        });
+        return !enqueue[0] || dispatch(userId, job);
+    }
+
+    private boolean dispatch(Long userId, Runnable job) {
+        try {
+            executor.execute(() -> run(userId, job));
+            submitted.incrementAndGet();
+            return true;
+        } catch (RejectedExecutionException e) {
+            userJobs.remove(userId);
+            rejected.incrementAndGet();
+            System.err.println("文章预生成队列已满，丢弃用户 " + userId + " 的补充任务");
+            return false;
+        }
+    }
+
+    private void run(Long userId, Runnable job) {
+        userJobs.put(userId, JobState.RUNNING);
+        try {
+            job.run();
+            completed.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            System.err.println("用户 " + userId + " 文章预生成失败: " + e.getMessage());
+        }
+
+        JobState next = userJobs.compute(userId,
+                (id, state) -> state == JobState.RUNNING_AGAIN ? JobState.QUEUED : null);
+        if (next == JobState.QUEUED) {
+            dispatch(userId, job);
+        }
+    }
+
+    /**
+     * 运行指标快照
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queueDepth", executor.getQueue().size());
+        metrics.put("activeThreads", executor.getActiveCount());
+        metrics.put("pendingUsers", userJobs.size());
+        metrics.put("submitted", submitted.get());
+        metrics.put("coalesced", coalesced.get());
+        metrics.put("rejected", rejected.get());
+        metrics.put("completed", completed.get());
+        metrics.put("failed", failed.get());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.englishaiapp.service;
 
 import com.example.englishaiapp.dto.ArticleResponse;
+import com.example.englishaiapp.dto.WordProgressBatchRequest;
+
+import java.util.List;
 
 public interface ArticleService {
     
@@ -16,9 +19,18 @@ public interface ArticleService {
      * 获取下一篇文章（通用或定制）
      * @param userId 用户ID
      * @param type generic 或 custom
+     * @param difficulty 通用文章的难度筛选（可为 null）
      * @return 文章内容
      */
-    ArticleResponse getNextArticle(Long userId, String type);
+    ArticleResponse getNextArticle(Long userId, String type, String difficulty);
+
+    /**
+     * 获取下一篇定制文章，直接返回响应 JSON
+     * 生成时已编码好的文章只需填入单词状态，不再解析和重新序列化
+     * @param userId 用户ID
+     * @return 与 getNextArticle(userId, "custom", null) 相同结构的 JSON
+     */
+    String getNextCustomArticleJson(Long userId);
 
     /**
      * 完成文章，触发队列补充
@@ -27,6 +39,12 @@ public interface ArticleService {
      */
     void completeArticle(Long userId, Long articleId);
 
+    /**
+     * 异步补充用户的 READY 文章队列（在当前事务提交后由后台线程执行）
+     * @param userId 用户ID
+     */
+    void requestRefill(Long userId);
+
     /**
      * 为用户生成多篇定制文章（用于初次解锁）
      * @param userId 用户ID
@@ -42,4 +60,12 @@ public interface ArticleService {
      * @param state 状态（correct/wrong）
      */
     void updateWordProgress(Long userId, Long articleId, String word, String state);
+
+    /**
+     * 批量更新一篇文章的单词答题进度和掌握度（一个事务内完成）
+     * @param userId 用户ID
+     * @param articleId 文章ID
+     * @param items 按答题顺序排列的状态变化
+     */
+    void updateWordProgressBatch(Long userId, Long articleId, List<WordProgressBatchRequest.Item> items);
 }
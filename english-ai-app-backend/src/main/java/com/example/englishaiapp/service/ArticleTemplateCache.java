@@ -0,0 +1,212 @@
+package com.example.englishaiapp.service;
+
+import com.example.englishaiapp.domain.ArticleTemplate;
+import com.example.englishaiapp.dto.ArticleResponse;
+import com.example.englishaiapp.repository.ArticleTemplateRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 通用文章模板的内存缓存
+ * 模板加载时即转换成完整的 ArticleResponse（单词库已解析），取用时只复制一份，不查库、不做 JSON 解析；
+ * 另保存全部模板ID（整体 + 按难度分组），随机抽取是 O(1)，不再执行 ORDER BY RAND()
+ * - 启动后加载，之后定时刷新；模板增删改时失效，下次抽取时重新加载
+ * - 尽量避开用户最近看过的几篇
+ */
+@Component
+public class ArticleTemplateCache {
+
+    private record Snapshot(long[] allIds, Map<String, long[]> idsByDifficulty, Map<Long, ArticleResponse> responses) {}
+
+    private static final TypeReference<List<ArticleResponse.WordItem>> WORD_BANK_TYPE = new TypeReference<>() {};
+
+    // 避开最近看过的模板时最多重抽的次数
+    private static final int MAX_RESAMPLES = 5;
+
+    @Autowired
+    private ArticleTemplateRepository articleTemplateRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${article.templates.recent-exclusion:5}")
+    private int recentExclusion;
+
+    @Value("${article.templates.max-tracked-users:10000}")
+    private int maxTrackedUsers;
+
+    private volatile Snapshot snapshot;
+
+    // 每次失效加 1，用于判断加载期间是否又发生了变化
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 一个用户最近看过的模板ID（按时间顺序），只在持有自身锁时访问
+     */
+    private static final class RecentTemplates {
+        final List<Long> ids = new ArrayList<>();
+        volatile long lastAccessNanos = System.nanoTime();
+    }
+
+    // 用户ID -> 最近看过的模板；每个用户单独加锁，超出用户数上限时批量淘汰最久未访问的用户
+    private final ConcurrentHashMap<Long, RecentTemplates> recentByUser = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${article.templates.refresh-interval:300000}",
+            initialDelayString = "${article.templates.refresh-interval:300000}")
+    public synchronized void refresh() {
+        reload();
+    }
+
+    /**
+     * 加载全部模板；加载期间发生过失效时不发布（结果可能已过期），只给本次调用使用
+     * 调用方持有 this 锁，多次重新加载不会重叠，较早的加载结果不会覆盖较新的
+     */
+    private Snapshot reload() {
+        long startVersion = version.get();
+        List<Long> all = new ArrayList<>();
+        Map<String, List<Long>> byDifficulty = new HashMap<>();
+        Map<Long, ArticleResponse> responses = new HashMap<>();
+        for (ArticleTemplate template : articleTemplateRepository.findAll()) {
+            all.add(template.getId());
+            responses.put(template.getId(), toResponse(template));
+            if (template.getDifficulty() != null) {
+                byDifficulty.computeIfAbsent(template.getDifficulty().toLowerCase(), d -> new ArrayList<>()).add(template.getId());
+            }
+        }
+
+        Map<String, long[]> idsByDifficulty = new HashMap<>();
+        byDifficulty.forEach((difficulty, ids) -> idsByDifficulty.put(difficulty, toArray(ids)));
+        Snapshot loaded = new Snapshot(toArray(all), idsByDifficulty, responses);
+        if (version.get() == startVersion) {
+            snapshot = loaded;
+        }
+        System.out.println("文章模板缓存已加载: " + all.size() + " 篇");
+        return loaded;
+    }
+
+    /**
+     * 模板发生变化（事务提交后）时调用，下次抽取会重新加载
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    /**
+     * 为用户随机抽取一篇模板
+     * 返回的是缓存对象的副本，调用方可以修改（例如设置单词状态）
+     * @param difficulty 可选；该难度没有模板时从全部模板中抽取
+     */
+    public Optional<ArticleResponse> pickRandom(Long userId, String difficulty) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot != null ? snapshot : reload();
+            }
+        }
+
+        long[] candidates = current.allIds();
+        if (difficulty != null && current.idsByDifficulty().containsKey(difficulty.toLowerCase())) {
+            candidates = current.idsByDifficulty().get(difficulty.toLowerCase());
+        }
+        if (candidates.length == 0) {
+            return Optional.empty();
+        }
+
+        RecentTemplates recentTemplates = recentByUser.computeIfAbsent(userId, id -> new RecentTemplates());
+        long picked;
+        synchronized (recentTemplates) {
+            recentTemplates.lastAccessNanos = System.nanoTime();
+            List<Long> recent = recentTemplates.ids;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            picked = candidates[random.nextInt(candidates.length)];
+            // 模板数不多于排除数时无法避开，直接使用第一次抽到的
+            for (int i = 0; i < MAX_RESAMPLES && candidates.length > recent.size() && recent.contains(picked); i++) {
+                picked = candidates[random.nextInt(candidates.length)];
+            }
+
+            recent.remove(picked);
+            recent.add(picked);
+            while (recent.size() > recentExclusion) {
+                recent.remove(0);
+            }
+        }
+        evictIfNeeded();
+        return Optional.of(copyOf(current.responses().get(picked)));
+    }
+
+    /**
+     * 用户数超过上限时淘汰最久未访问的用户（一次多淘汰 10%，摊薄排序的开销）
+     */
+    private void evictIfNeeded() {
+        if (recentByUser.size() <= maxTrackedUsers || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int excess = recentByUser.size() - maxTrackedUsers + maxTrackedUsers / 10;
+            recentByUser.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().lastAccessNanos))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(recentByUser::remove);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static ArticleResponse copyOf(ArticleResponse cached) {
+        ArticleResponse response = new ArticleResponse();
+        response.setArticleId(cached.getArticleId());
+        response.setTitle(cached.getTitle());
+        response.setContent(cached.getContent());
+        List<ArticleResponse.WordItem> wordBank = new ArrayList<>(cached.getWordBank().size());
+        for (ArticleResponse.WordItem cachedItem : cached.getWordBank()) {
+            ArticleResponse.WordItem item = new ArticleResponse.WordItem(
+                    cachedItem.getId(), cachedItem.getWord(), cachedItem.getMeaning(), cachedItem.getMasteryScore());
+            item.setState(cachedItem.getState());
+            wordBank.add(item);
+        }
+        response.setWordBank(wordBank);
+        return response;
+    }
+
+    private ArticleResponse toResponse(ArticleTemplate template) {
+        ArticleResponse response = new ArticleResponse();
+        response.setTitle(template.getTitle());
+        response.setContent(template.getContent());
+
+        List<ArticleResponse.WordItem> wordBank = List.of();
+        try {
+            if (template.getWordBankJson() != null && !template.getWordBankJson().isEmpty()) {
+                wordBank = List.copyOf(objectMapper.readValue(template.getWordBankJson(), WORD_BANK_TYPE));
+            }
+        } catch (Exception e) {
+            System.err.println("模板 " + template.getId() + " 单词库解析失败: " + e.getMessage());
+        }
+        response.setWordBank(wordBank);
+        return response;
+    }
+
+    private static long[] toArray(List<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.englishaiapp.service;
+
+import com.example.englishaiapp.util.TransactionCallbacks;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * ArticleTemplate 实体监听器：模板通过 JPA 增删改后让模板索引失效
+ * （由 Hibernate 通过 Spring 容器创建，因此可以注入 Bean）
+ * 回调发生在 flush 时、事务提交之前，失效放到提交之后，避免重新加载时读到还没提交的旧数据
+ */
+public class ArticleTemplateChangeListener {
+
+    @Autowired
+    @Lazy
+    private ArticleTemplateCache articleTemplateCache;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object template) {
+        TransactionCallbacks.afterCommit(articleTemplateCache::invalidate);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.englishaiapp.service;
 
 import com.example.englishaiapp.domain.Word;
 import com.example.englishaiapp.repository.WordRepository;
+import com.example.englishaiapp.util.TransactionCallbacks;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,6 +28,9 @@ public class DataImportService {
     @Autowired
     private WordRepository wordRepository;
 
+    @Autowired
+    private WordDictionary wordDictionary;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // Regex to capture the values from the SQL INSERT statement
@@ -39,6 +43,9 @@ public class DataImportService {
         // Clear existing data to prevent duplicates on re-run
         wordRepository.deleteAllInBatch();
 
+        // 导入提交后重新加载内存词典
+        TransactionCallbacks.afterCommit(wordDictionary::reload);
+
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
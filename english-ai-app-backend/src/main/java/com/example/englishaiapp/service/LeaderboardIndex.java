@@ -0,0 +1,256 @@
+package com.example.englishaiapp.service;
+
+import com.example.englishaiapp.domain.User;
+import com.example.englishaiapp.dto.UserExpRow;
+import com.example.englishaiapp.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内存排行榜
+ * - 树状数组（Fenwick）按经验值分桶计数（每桶 EXP_BUCKET 个经验值），加上每个经验值的人数，
+ *   排名是 O(log n + EXP_BUCKET) 查询，数组大小是最高经验值的 1/EXP_BUCKET
+ * - 按 (经验降序, 用户ID升序) 排序的集合，用于前 N 名
+ * 启动时按ID分批扫描 users 重建；签到、学习、注册提交后调用 update()
+ * 经验值只增不减，update() 只接受不小于当前值的经验，乱序到达的旧值会被忽略
+ */
+@Component
+public class LeaderboardIndex {
+
+    private record Entry(long userId, String nickname, int exp) {}
+
+    // 每个树状数组桶覆盖的经验值个数
+    private static final int EXP_BUCKET = 64;
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingInt(Entry::exp).reversed()
+            .thenComparingLong(Entry::userId);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // 启动重建时每批读取的用户数
+    @Value("${leaderboard.rebuild.batch-size:1000}")
+    private int rebuildBatchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>(RANKING);
+    // 每个经验值的人数（桶内精确计数）
+    private final TreeMap<Integer, Integer> expCounts = new TreeMap<>();
+    private int[] tree = new int[64]; // 下标为 exp / EXP_BUCKET + 1
+    private volatile boolean ready;
+
+    /**
+     * 计算用户经验值
+     */
+    public static int calculateExp(User user) {
+        return calculateExp(user.getTotalWordsLearned(), user.getWordsMastered(), user.getTotalCheckinDays());
+    }
+
+    public static int calculateExp(UserExpRow row) {
+        return calculateExp(row.getTotalWordsLearned(), row.getWordsMastered(), row.getTotalCheckinDays());
+    }
+
+    private static int calculateExp(Integer totalWordsLearned, Integer wordsMastered, Integer totalCheckinDays) {
+        // 经验值计算规则：
+        // - 每学习一个单词：10经验
+        // - 每掌握一个单词：20经验
+        // - 每签到一天：5经验
+        int exp = 0;
+        exp += (totalWordsLearned == null ? 0 : totalWordsLearned) * 10;
+        exp += (wordsMastered == null ? 0 : wordsMastered) * 20;
+        exp += (totalCheckinDays == null ? 0 : totalCheckinDays) * 5;
+        return exp;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        long afterId = 0;
+        int count = 0;
+        List<UserExpRow> rows;
+        do {
+            rows = userRepository.findExpRowsAfter(afterId, PageRequest.of(0, rebuildBatchSize));
+            lock.writeLock().lock();
+            try {
+                for (UserExpRow row : rows) {
+                    put(row.getUserId(), row.getNickname(), calculateExp(row));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!rows.isEmpty()) {
+                afterId = rows.get(rows.size() - 1).getUserId();
+                count += rows.size();
+            }
+        } while (rows.size() == rebuildBatchSize);
+        ready = true;
+        System.out.println("排行榜已重建: " + count + " 个用户, 耗时 " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * 记录用户当前的经验值（在修改用户的事务提交后调用）
+     */
+    public void update(User user) {
+        lock.writeLock().lock();
+        try {
+            put(user.getId(), user.getNickname(), calculateExp(user));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 经验值为 exp 的用户的排名（经验更高的人数 + 1）
+     */
+    public int rank(int exp) {
+        ensureReady();
+        lock.readLock().lock();
+        try {
+            return entries.size() - countAtMost(exp) + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int totalUsers() {
+        ensureReady();
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 前 limit 名（经验相同的用户排名相同）
+     */
+    public List<Map<String, Object>> top(int limit) {
+        ensureReady();
+        lock.readLock().lock();
+        try {
+            List<Map<String, Object>> top = new ArrayList<>(Math.min(limit, ranking.size()));
+            Iterator<Entry> iterator = ranking.iterator();
+            int rank = 0;
+            int previousExp = -1;
+            for (int position = 1; position <= limit && iterator.hasNext(); position++) {
+                Entry entry = iterator.next();
+                if (entry.exp() != previousExp) {
+                    rank = position;
+                    previousExp = entry.exp();
+                }
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("rank", rank);
+                item.put("userId", entry.userId());
+                item.put("nickname", entry.nickname());
+                item.put("exp", entry.exp());
+                top.add(item);
+            }
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 运行指标快照
+     */
+    public Map<String, Object> metrics() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("ready", ready);
+            metrics.put("users", entries.size());
+            metrics.put("maxExp", ranking.isEmpty() ? 0 : ranking.first().exp());
+            metrics.put("distinctExp", expCounts.size());
+            metrics.put("treeCapacity", tree.length);
+            return metrics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 调用方持有写锁
+    private void put(Long userId, String nickname, int exp) {
+        Entry previous = entries.get(userId);
+        if (previous != null) {
+            if (exp < previous.exp()) {
+                return;
+            }
+            entries.remove(userId);
+            ranking.remove(previous);
+            add(previous.exp(), -1);
+        }
+        add(exp, 1);
+        Entry entry = new Entry(userId, nickname, exp);
+        entries.put(userId, entry);
+        ranking.add(entry);
+    }
+
+    private void add(int exp, int delta) {
+        int index = exp / EXP_BUCKET + 1;
+        if (index >= tree.length) {
+            grow(index);
+        }
+        expCounts.merge(exp, delta, (count, change) -> count + change == 0 ? null : count + change);
+        for (int i = index; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // 经验值不超过 exp 的人数：更低的桶查树状数组，所在桶内按经验值精确累加
+    private int countAtMost(int exp) {
+        if (exp < 0) {
+            return 0;
+        }
+        int bucketStart = exp - exp % EXP_BUCKET;
+        int count = 0;
+        for (int i = Math.min(exp / EXP_BUCKET, tree.length - 1); i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        for (int sameBucket : expCounts.subMap(bucketStart, true, exp, true).values()) {
+            count += sameBucket;
+        }
+        return count;
+    }
+
+    // 容量翻倍到能放下 index，并按各经验值人数重新计数
+    private void grow(int index) {
+        int capacity = tree.length;
+        while (capacity <= index) {
+            capacity *= 2;
+        }
+        tree = new int[capacity];
+        for (Map.Entry<Integer, Integer> expCount : expCounts.entrySet()) {
+            for (int i = expCount.getKey() / EXP_BUCKET + 1; i < tree.length; i += i & -i) {
+                tree[i] += expCount.getValue();
+            }
+        }
+    }
+
+    private void ensureReady() {
+        if (!ready) {
+            synchronized (this) {
+                if (!ready) {
+                    rebuild();
+                }
+            }
+        }
+    }
+}
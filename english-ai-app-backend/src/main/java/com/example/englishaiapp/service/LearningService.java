@@ -2,6 +2,7 @@ package com.example.englishaiapp.service;
 
 import com.example.englishaiapp.domain.Word;
 import com.example.englishaiapp.domain.UserWordMastery;
+import com.example.englishaiapp.dto.LearningResult;
 
 import java.util.List;
 
@@ -15,6 +16,14 @@ public interface LearningService {
      */
     List<Word> getLearningSession(Long userId, int limit);
 
+    /**
+     * 组装用户的下一次学习任务，但不标记为已出现（供后台预取）
+     * @param userId 用户ID
+     * @param limit 获取的单词数量
+     * @return 组装好的学习任务
+     */
+    LearningSessionCache.PreparedSession prepareLearningSession(Long userId, int limit);
+
     /**
      * 提交用户的学习结果
      * @param userId 用户ID
@@ -24,6 +33,14 @@ public interface LearningService {
      */
     UserWordMastery submitLearningResult(Long userId, Long wordId, boolean isCorrect);
 
+    /**
+     * 按答题时间先后批量应用同一用户的学习结果
+     * 答题时间不晚于该单词 lastLearnedAt 的结果视为已应用，直接跳过，因此可以安全重放
+     * @param userId 用户ID
+     * @param results 学习结果
+     */
+    void applyLearningResults(Long userId, List<LearningResult> results);
+
     /**
      * 获取用户的陈生单词数量（分数 < 6）
      * @param userId 用户ID
@@ -0,0 +1,173 @@
+package com.example.englishaiapp.service;
+
+import com.example.englishaiapp.domain.Word;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 预取的下一次学习任务（每个用户一个条目）
+ * 预取开始时领取一个令牌，写入时令牌已被作废（期间掌握度发生变化）说明结果可能过期，直接丢弃
+ * 槽位只能取用一次，超过有效期（复习到期时间会随时间推移）也会丢弃
+ * 同时记录最近一次取走的任务还有多少单词未作答，用于判断何时预取下一次任务
+ * 条目总数有上限，超出时淘汰最久未使用的用户
+ */
+@Component
+public class LearningSessionCache {
+
+    /**
+     * 组装好的学习任务
+     * @param words 按顺序排列的单词（复习单词在前，新词在后）
+     * @param reviewMasteryIds 其中复习单词对应的掌握度记录ID（取用时更新 lastSeenAt）
+     */
+    public record PreparedSession(List<Word> words, List<Long> reviewMasteryIds) {}
+
+    private record Slot(int limit, long preparedAtNanos, PreparedSession session) {}
+
+    /**
+     * 单个用户的状态，由 entries 的锁保护
+     */
+    private static final class Entry {
+        // 进行中的预取令牌，0 表示没有
+        long token;
+        Slot slot;
+        // 最近一次取走的任务中未作答的单词数，-1 表示未知
+        int unanswered = -1;
+    }
+
+    private final long ttlNanos;
+    private final int maxUsers;
+
+    // 按访问顺序排列，超出用户数上限时淘汰最久未使用的条目
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long lastToken;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    public LearningSessionCache(@Value("${learning.session.prefetch.ttl:5m}") Duration ttl,
+                                @Value("${learning.session.prefetch.max-users:10000}") int maxUsers) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * 开始一次预取，返回写入时要带上的令牌
+     */
+    public long beginPrefetch(Long userId) {
+        synchronized (entries) {
+            Entry entry = entry(userId);
+            entry.token = ++lastToken;
+            return entry.token;
+        }
+    }
+
+    /**
+     * 掌握度变化：已有的槽位和进行中的预取作废
+     */
+    public void invalidate(Long userId) {
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry != null) {
+                entry.token = 0;
+                entry.slot = null;
+            }
+        }
+    }
+
+    /**
+     * 写入预取结果；预取期间令牌被作废则丢弃
+     */
+    public void put(Long userId, long token, int limit, PreparedSession session) {
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry == null || entry.token != token) {
+                discarded.incrementAndGet();
+                return;
+            }
+            entry.token = 0;
+            entry.slot = new Slot(limit, System.nanoTime(), session);
+        }
+        stored.incrementAndGet();
+    }
+
+    /**
+     * 取走用户的预取任务（只能取一次）
+     */
+    public Optional<PreparedSession> take(Long userId, int limit) {
+        Slot slot = null;
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry != null) {
+                slot = entry.slot;
+                entry.slot = null;
+            }
+        }
+        if (slot == null || slot.limit() != limit || System.nanoTime() - slot.preparedAtNanos() > ttlNanos) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(slot.session());
+    }
+
+    /**
+     * 记录发给用户的任务单词数
+     */
+    public void served(Long userId, int words) {
+        synchronized (entries) {
+            entry(userId).unanswered = words;
+        }
+    }
+
+    /**
+     * 记录作答数量
+     * @return 最近一次任务剩余未作答的单词数；不知道用户拿到过哪次任务时返回 -1
+     */
+    public int answered(Long userId, int answers) {
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry == null || entry.unanswered < 0) {
+                return -1;
+            }
+            entry.unanswered = Math.max(0, entry.unanswered - answers);
+            return entry.unanswered;
+        }
+    }
+
+    private Entry entry(Long userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(userId, entry);
+            if (entries.size() > maxUsers) {
+                entries.remove(entries.keySet().iterator().next());
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * 运行指标快照
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (entries) {
+            metrics.put("users", entries.size());
+            metrics.put("slots", entries.values().stream().filter(entry -> entry.slot != null).count());
+        }
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("stored", stored.get());
+        metrics.put("discarded", discarded.get());
+        return metrics;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.englishaiapp.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 后台预取下一次学习任务
+ * 掌握度变化的事务提交后让槽位失效；最近一次发出的任务全部作答后（逐题提交到最后一题，或一次批量提交），
+ * 在短暂延迟后预取下一次任务（连续的变化只触发一次预取），答题过程中不预取
+ */
+@Component
+public class LearningSessionPrefetcher {
+
+    @Autowired
+    private LearningService learningService;
+
+    @Autowired
+    private LearningSessionCache learningSessionCache;
+
+    private final boolean enabled;
+    private final int limit;
+    private final long debounceMillis;
+    private final ScheduledThreadPoolExecutor executor;
+
+    // 已安排但尚未开始预取的用户
+    private final Set<Long> scheduled = ConcurrentHashMap.newKeySet();
+
+    public LearningSessionPrefetcher(@Value("${learning.session.prefetch.enabled:true}") boolean enabled,
+                                     @Value("${learning.session.prefetch.limit:20}") int limit,
+                                     @Value("${learning.session.prefetch.debounce:500ms}") Duration debounce,
+                                     @Value("${learning.session.prefetch.threads:2}") int threads) {
+        this.enabled = enabled;
+        this.limit = limit;
+        this.debounceMillis = debounce.toMillis();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(threads, r -> {
+            Thread t = new Thread(r, "learning-session-prefetch-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMasteryChanged(MasteryChangedEvent event) {
+        Long userId = event.userId();
+        learningSessionCache.invalidate(userId);
+        if (!enabled || learningSessionCache.answered(userId, event.answers()) != 0 || !scheduled.add(userId)) {
+            return;
+        }
+        try {
+            executor.schedule(() -> prefetch(userId), debounceMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            scheduled.remove(userId);
+        }
+    }
+
+    private void prefetch(Long userId) {
+        // 先移出，预取期间的新变化会安排下一次预取
+        scheduled.remove(userId);
+        long token = learningSessionCache.beginPrefetch(userId);
+        try {
+            learningSessionCache.put(userId, token, limit, learningService.prepareLearningSession(userId, limit));
+        } catch (RuntimeException e) {
+            System.err.println("预取用户 " + userId + " 的学习任务失败: " + e.getMessage());
+        }
+    }
+}
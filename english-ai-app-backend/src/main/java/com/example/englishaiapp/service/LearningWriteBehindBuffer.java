@@ -0,0 +1,621 @@
+package com.example.englishaiapp.service;
+
+import com.example.englishaiapp.dto.LearningResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * 学习结果写回缓冲（write-behind）
+ * 开启后提交只写本地日志和内存，由后台按时间间隔或数量阈值合并写库：
+ * - 日志：每条结果追加到当前段文件；开启 fsync 时由单独的刷盘线程合并 fsync（组提交），提交方在锁外等待刷盘完成；
+ *   写库时切换到新段，旧段在其中的结果写库后删除；启动时重放残留的段
+ * - 写库：按用户调用 LearningService.applyLearningResults，每个用户一个事务，掌握度批量写入、用户只保存一次
+ * - 读取学习数据前调用 flushUser，保证用户能读到自己刚提交的结果；同一用户的写库按用户锁串行，不同用户互不等待
+ * - 同一批结果连续写库失败 max-attempts 次后移入死信文件 dead-letter.log，不再重试
+ * 崩溃重放可能再次提交已写库的结果，由 applyLearningResults 按答题时间跳过
+ */
+@Component
+public class LearningWriteBehindBuffer {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+    // 用户锁分段数
+    private static final int USER_LOCK_STRIPES = 64;
+    // 等待刷盘的最长时间
+    private static final long SYNC_WAIT_MILLIS = 10_000;
+
+    @Autowired
+    private LearningService learningService;
+
+    @Value("${learning.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${learning.write-behind.flush-interval:1s}")
+    private Duration flushInterval;
+
+    @Value("${learning.write-behind.flush-threshold:500}")
+    private int flushThreshold;
+
+    @Value("${learning.write-behind.journal-dir:./data/learning-journal}")
+    private String journalDir;
+
+    @Value("${learning.write-behind.fsync:true}")
+    private boolean fsync;
+
+    @Value("${learning.write-behind.max-attempts:5}")
+    private int maxAttempts;
+
+    // 以下字段由 lock 保护
+    private final Object lock = new Object();
+    private Map<Long, List<LearningResult>> pending = new HashMap<>();
+    private int pendingCount;
+    private FileChannel segment;
+    private Path segmentPath;
+    private long segmentSeq;
+    private long segmentBytes;
+    private LocalDateTime lastAnsweredAt = LocalDateTime.MIN;
+    // 每个用户连续写库失败的次数
+    private final Map<Long, Integer> failedAttempts = new HashMap<>();
+    // 已追加到日志的记录序号
+    private long appendedSeq;
+
+    // 组提交：以下字段由 syncLock 保护
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncRequested = syncLock.newCondition();
+    private final Condition synced = syncLock.newCondition();
+    private long requestedSeq;
+    private long durableSeq;
+    private long failedSeq;
+    private ExecutorService syncer;
+
+    // 整体写库串行执行；同一用户的结果只在持有该用户锁时写库并移出 pending
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ReentrantLock[] userLocks = new ReentrantLock[USER_LOCK_STRIPES];
+    private final Object deadLetterLock = new Object();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private ScheduledExecutorService flusher;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong flushedResults = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+
+    public LearningWriteBehindBuffer() {
+        for (int i = 0; i < userLocks.length; i++) {
+            userLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path dir = Paths.get(journalDir);
+        Files.createDirectories(dir);
+
+        // 上次未写库的段：读入内存并写进新段，之后按正常流程写库
+        List<Path> leftovers = listSegments(dir);
+        if (!leftovers.isEmpty()) {
+            segmentSeq = segmentSeqOf(leftovers.get(leftovers.size() - 1));
+        }
+        int replayed = 0;
+        synchronized (lock) {
+            openNextSegment();
+            for (Path path : leftovers) {
+                for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                    if (replayLine(line)) {
+                        replayed++;
+                    }
+                }
+            }
+            if (replayed > 0) {
+                segment.force(false);
+            }
+            durableSeq = appendedSeq;
+        }
+        for (Path path : leftovers) {
+            Files.deleteIfExists(path);
+        }
+        if (replayed > 0) {
+            System.out.println("学习结果日志重放: " + replayed + " 条");
+        }
+
+        if (fsync) {
+            syncer = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "learning-journal-sync");
+                t.setDaemon(true);
+                return t;
+            });
+            syncer.execute(this::syncLoop);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "learning-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        long intervalMillis = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(30, TimeUnit.SECONDS);
+        flush();
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        synchronized (lock) {
+            if (fsync) {
+                segment.force(false);
+            }
+            segment.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 记录一次答题：写入日志（开启 fsync 时等刷盘完成）后即返回，稍后写库
+     */
+    public void submit(Long userId, Long wordId, boolean isCorrect) {
+        boolean thresholdReached;
+        long seq;
+        synchronized (lock) {
+            LearningResult result = new LearningResult(wordId, isCorrect, nextAnsweredAt());
+            try {
+                seq = append(userId, result);
+            } catch (IOException e) {
+                System.err.println("写入学习结果日志失败: " + e.getMessage());
+                throw new RuntimeException("LEARNING_JOURNAL_FAILED", e);
+            }
+            pending.computeIfAbsent(userId, id -> new ArrayList<>()).add(result);
+            pendingCount++;
+            thresholdReached = pendingCount >= flushThreshold;
+        }
+        submitted.incrementAndGet();
+        // 在全局锁之外等待组提交，期间其他请求可以继续追加
+        awaitDurable(seq);
+
+        if (thresholdReached && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * 立即把某个用户缓冲中的结果写库（读取该用户学习数据之前调用）
+     * 写库失败时只记录，结果留在缓冲中稍后重试，不影响本次读取
+     */
+    public void flushUser(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (lock) {
+            if (!pending.containsKey(userId)) {
+                return;
+            }
+        }
+
+        ReentrantLock userLock = userLock(userId);
+        userLock.lock();
+        try {
+            List<LearningResult> results = pendingOf(userId);
+            if (results != null && !apply(userId, results)) {
+                // 结果仍在日志中；若所在段正被整体写库切换掉，整体写库会在拿到用户锁后重新写入
+                retryOrDeadLetter(userId, results);
+            }
+        } finally {
+            userLock.unlock();
+        }
+    }
+
+    /**
+     * 把缓冲中的全部结果写库，并删除已写库的段
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Long> userIds;
+            Path sealed;
+            synchronized (lock) {
+                flushRequested.set(false);
+                if (pending.isEmpty() && segmentBytes == 0) {
+                    return;
+                }
+                // 切换到新段：旧段中尚未写库的结果都属于下面这些用户，逐个处理完后旧段即可删除
+                FileChannel previous = segment;
+                sealed = segmentPath;
+                if (fsync) {
+                    // 旧段关闭前刷盘，其中的记录都算已落盘
+                    previous.force(false);
+                    markDurable(appendedSeq);
+                }
+                openNextSegment();
+                previous.close();
+                userIds = new ArrayList<>(pending.keySet());
+            }
+
+            boolean sealedSafeToDelete = true;
+            long requeuedSeq = 0;
+            for (Long userId : userIds) {
+                ReentrantLock userLock = userLock(userId);
+                userLock.lock();
+                try {
+                    List<LearningResult> results = pendingOf(userId);
+                    if (results == null || apply(userId, results)) {
+                        continue;
+                    }
+                    if (retryOrDeadLetter(userId, results)) {
+                        long seq = requeue(userId, results);
+                        sealedSafeToDelete &= seq >= 0;
+                        requeuedSeq = Math.max(requeuedSeq, seq);
+                    }
+                } finally {
+                    userLock.unlock();
+                }
+            }
+            flushes.incrementAndGet();
+
+            // 重新写入的结果落盘之后旧段才能删除
+            if (sealedSafeToDelete && requeuedSeq > 0) {
+                try {
+                    awaitDurable(requeuedSeq);
+                } catch (RuntimeException e) {
+                    sealedSafeToDelete = false;
+                }
+            }
+
+            if (sealedSafeToDelete) {
+                Files.deleteIfExists(sealed);
+            }
+        } catch (IOException e) {
+            System.err.println("切换学习结果日志段失败: " + e.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("学习结果写库失败: " + e.getMessage());
+        }
+    }
+
+    private ReentrantLock userLock(Long userId) {
+        return userLocks[Math.floorMod(userId.hashCode(), userLocks.length)];
+    }
+
+    /**
+     * 用户当前缓冲的结果副本（调用方持有用户锁，期间只会有新结果追加到末尾）
+     */
+    private List<LearningResult> pendingOf(Long userId) {
+        synchronized (lock) {
+            List<LearningResult> results = pending.get(userId);
+            return results == null ? null : new ArrayList<>(results);
+        }
+    }
+
+    /**
+     * 写库，成功后把这些结果移出缓冲
+     */
+    private boolean apply(Long userId, List<LearningResult> results) {
+        try {
+            learningService.applyLearningResults(userId, results);
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            System.err.println("学习结果写库失败，用户 " + userId + ": " + e.getMessage());
+            return false;
+        }
+        flushedResults.addAndGet(results.size());
+        synchronized (lock) {
+            failedAttempts.remove(userId);
+            removePending(userId, results.size());
+        }
+        return true;
+    }
+
+    /**
+     * 记录一次写库失败；达到 max-attempts 次时把这批结果移入死信文件并移出缓冲
+     * @return 是否还需要重试
+     */
+    private boolean retryOrDeadLetter(Long userId, List<LearningResult> results) {
+        synchronized (lock) {
+            if (failedAttempts.merge(userId, 1, Integer::sum) < maxAttempts) {
+                return true;
+            }
+        }
+        try {
+            writeDeadLetter(userId, results);
+        } catch (IOException e) {
+            System.err.println("写入学习结果死信文件失败: " + e.getMessage());
+            return true;
+        }
+        deadLettered.addAndGet(results.size());
+        System.err.println("学习结果连续写库失败 " + maxAttempts + " 次，已移入死信文件，用户 " + userId
+                + "，共 " + results.size() + " 条");
+        synchronized (lock) {
+            failedAttempts.remove(userId);
+            removePending(userId, results.size());
+        }
+        return false;
+    }
+
+    private void removePending(Long userId, int count) {
+        List<LearningResult> results = pending.get(userId);
+        results.subList(0, count).clear();
+        if (results.isEmpty()) {
+            pending.remove(userId);
+        }
+        pendingCount -= count;
+    }
+
+    private void writeDeadLetter(Long userId, List<LearningResult> results) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (LearningResult result : results) {
+            lines.append(formatLine(userId, result));
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        synchronized (deadLetterLock) {
+            try (FileChannel channel = FileChannel.open(Paths.get(journalDir).resolve(DEAD_LETTER_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+        }
+    }
+
+    /**
+     * 写库失败、仍在旧段中的结果重新写入当前段（仍留在缓冲中）
+     * @return 最后一条记录的序号；未能重新写入日志时返回 -1（旧段不能删除）
+     */
+    private long requeue(Long userId, List<LearningResult> results) {
+        synchronized (lock) {
+            try {
+                long seq = 0;
+                for (LearningResult result : results) {
+                    seq = append(userId, result);
+                }
+                return seq;
+            } catch (IOException e) {
+                System.err.println("重新写入学习结果日志失败: " + e.getMessage());
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * 刷盘线程：把请求到的所有记录合并为一次 fsync，然后唤醒等待的提交方
+     */
+    private void syncLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                syncLock.lock();
+                try {
+                    while (requestedSeq <= durableSeq) {
+                        syncRequested.await();
+                    }
+                } finally {
+                    syncLock.unlock();
+                }
+
+                long target;
+                FileChannel channel;
+                synchronized (lock) {
+                    target = appendedSeq;
+                    channel = segment;
+                }
+                try {
+                    channel.force(false);
+                    syncs.incrementAndGet();
+                    markDurable(target);
+                } catch (ClosedChannelException e) {
+                    // 段已被切换，切换时已刷盘并标记
+                } catch (IOException e) {
+                    System.err.println("学习结果日志刷盘失败: " + e.getMessage());
+                    markFailed(target);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 等待序号 seq 及之前的记录落盘；未开启 fsync 时直接返回
+     */
+    private void awaitDurable(long seq) {
+        if (!fsync) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SYNC_WAIT_MILLIS);
+        syncLock.lock();
+        try {
+            if (seq > requestedSeq) {
+                requestedSeq = seq;
+                syncRequested.signal();
+            }
+            while (durableSeq < seq) {
+                if (failedSeq >= seq) {
+                    throw new RuntimeException("LEARNING_JOURNAL_FAILED");
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    System.err.println("等待学习结果日志刷盘超时");
+                    throw new RuntimeException("LEARNING_JOURNAL_FAILED");
+                }
+                synced.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("LEARNING_JOURNAL_FAILED", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void markDurable(long seq) {
+        syncLock.lock();
+        try {
+            if (seq > durableSeq) {
+                durableSeq = seq;
+                synced.signalAll();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void markFailed(long seq) {
+        syncLock.lock();
+        try {
+            // 失败的记录仍在日志中，之后的刷盘成功时会一并确认
+            if (seq > failedSeq) {
+                failedSeq = seq;
+            }
+            if (requestedSeq <= seq) {
+                requestedSeq = durableSeq;
+            }
+            synced.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * 答题时间取到微秒（与数据库精度一致），并保证严格递增，避免同一时刻的两次答题被当作重复
+     */
+    private LocalDateTime nextAnsweredAt() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        if (!now.isAfter(lastAnsweredAt)) {
+            now = lastAnsweredAt.plus(1, ChronoUnit.MICROS);
+        }
+        lastAnsweredAt = now;
+        return now;
+    }
+
+    /**
+     * 追加一条记录（调用方持有 lock），返回它的序号，不在这里刷盘
+     */
+    private long append(Long userId, LearningResult result) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(formatLine(userId, result).getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            segmentBytes += segment.write(buffer);
+        }
+        return ++appendedSeq;
+    }
+
+    private static String formatLine(Long userId, LearningResult result) {
+        // 格式：userId wordId correct(1/0) answeredAt
+        return userId + " " + result.getWordId() + " " + (result.isCorrect() ? 1 : 0)
+                + " " + result.getAnsweredAt() + "\n";
+    }
+
+    private boolean replayLine(String line) throws IOException {
+        String[] parts = line.trim().split(" ");
+        if (parts.length != 4) {
+            return false; // 崩溃时写了一半的行
+        }
+        try {
+            Long userId = Long.parseLong(parts[0]);
+            LearningResult result = new LearningResult(
+                    Long.parseLong(parts[1]), "1".equals(parts[2]), LocalDateTime.parse(parts[3]));
+            append(userId, result);
+            pending.computeIfAbsent(userId, id -> new ArrayList<>()).add(result);
+            pendingCount++;
+            if (result.getAnsweredAt().isAfter(lastAnsweredAt)) {
+                lastAnsweredAt = result.getAnsweredAt();
+            }
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void openNextSegment() throws IOException {
+        segmentSeq++;
+        segmentPath = Paths.get(journalDir).resolve(String.format("%s%012d%s", SEGMENT_PREFIX, segmentSeq, SEGMENT_SUFFIX));
+        segment = FileChannel.open(segmentPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentBytes = 0;
+    }
+
+    private static List<Path> listSegments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long segmentSeqOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * 运行指标快照
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        synchronized (lock) {
+            metrics.put("pendingResults", pendingCount);
+            metrics.put("pendingUsers", pending.size());
+            metrics.put("segmentBytes", segmentBytes);
+        }
+        metrics.put("submitted", submitted.get());
+        metrics.put("flushedResults", flushedResults.get());
+        metrics.put("flushes", flushes.get());
+        metrics.put("failures", failures.get());
+        metrics.put("syncs", syncs.get());
+        metrics.put("deadLettered", deadLettered.get());
+        return metrics;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.englishaiapp.service;
+
+/**
+ * 用户单词掌握度（或最近学习的单词）发生变化，在事务内发布
+ * 事务提交后用于让预取的学习任务失效，并在任务作答完时重新预取
+ * @param answers 本次包含的学习任务作答数（文章中标记单词等其他来源为 0）
+ */
+public record MasteryChangedEvent(Long userId, int answers) {}
@@ -0,0 +1,85 @@
+package com.example.englishaiapp.service;
+
+import com.example.englishaiapp.domain.UserMasteryStats;
+import com.example.englishaiapp.repository.UserMasteryStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 维护 user_mastery_stats：掌握度变化时记录增量，统计读取是一次主键查询
+ * 分档：weak（< 1）、learning（1 ~ 3）、mastered（>= 3）、strange（< 6）
+ */
+@Component
+public class MasteryStatsTracker {
+
+    public static final int STRANGE_SCORE = 6;
+
+    /**
+     * 一次或多次掌握度变化累计的增量
+     */
+    public static final class Delta {
+        private int weak;
+        private int learning;
+        private int mastered;
+        private int strange;
+        private int total;
+
+        /**
+         * @param oldScore 变化前的分数，新建的掌握度记录传 null
+         * @param newScore 变化后的分数
+         */
+        public Delta add(Integer oldScore, int newScore) {
+            if (oldScore == null) {
+                total++;
+            } else {
+                count(oldScore, -1);
+            }
+            count(newScore, 1);
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return weak == 0 && learning == 0 && mastered == 0 && strange == 0 && total == 0;
+        }
+
+        private void count(int score, int sign) {
+            if (score >= 3) {
+                mastered += sign;
+            } else if (score >= 1) {
+                learning += sign;
+            } else {
+                weak += sign;
+            }
+            if (score < STRANGE_SCORE) {
+                strange += sign;
+            }
+        }
+    }
+
+    @Autowired
+    private UserMasteryStatsRepository userMasteryStatsRepository;
+
+    /**
+     * 在当前事务中应用增量（与掌握度的修改一同提交）
+     */
+    @Transactional
+    public void apply(Long userId, Delta delta) {
+        if (!delta.isEmpty()) {
+            userMasteryStatsRepository.applyDelta(userId,
+                    delta.weak, delta.learning, delta.mastered, delta.strange, delta.total);
+        }
+    }
+
+    /**
+     * 读取用户的统计，没有统计行时先汇总初始化
+     */
+    @Transactional
+    public UserMasteryStats get(Long userId) {
+        return userMasteryStatsRepository.findById(userId).orElseGet(() -> {
+            userMasteryStatsRepository.initializeFromMastery(userId);
+            return userMasteryStatsRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("STATS_NOT_FOUND"));
+        });
+    }
+}
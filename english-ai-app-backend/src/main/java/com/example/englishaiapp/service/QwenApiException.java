@@ -0,0 +1,24 @@
+package com.example.englishaiapp.service;
+
+/**
+ * 千问API调用异常
+ * statusCode 为 HTTP 状态码；超时、连接失败等没有响应的情况为 -1
+ */
+public class QwenApiException extends RuntimeException {
+
+    private final int statusCode;
+
+    public QwenApiException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public QwenApiException(String message, int statusCode, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
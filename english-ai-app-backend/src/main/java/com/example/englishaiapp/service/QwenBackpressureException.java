@@ -0,0 +1,16 @@
+package com.example.englishaiapp.service;
+
+/**
+ * 本地限流导致的失败（排队等待调用名额或连接超时），请求没有发到服务商
+ * 不重试、不计入熔断窗口：本地饱和时重试只会加重排队，也不能说明服务商故障
+ */
+public class QwenBackpressureException extends QwenApiException {
+
+    public QwenBackpressureException(String message) {
+        super(message, -1);
+    }
+
+    public QwenBackpressureException(String message, Throwable cause) {
+        super(message, -1, cause);
+    }
+}
@@ -2,17 +2,18 @@ package com.example.englishaiapp.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 @Component
 public class QwenClient {
@@ -21,7 +22,41 @@ public class QwenClient {
     private static final String API_URL = "https://dashscope.aliyuncs.com/api/v1/services/aigc/text-generation/generation";
     private static final String MODEL = "qwen-max";
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private QwenHttpTransport transport;
+
+    @Autowired
+    private QwenGovernor governor;
+
+    @Autowired
+    private QwenResilience resilience;
+
+    @Value("${qwen.api-url:" + API_URL + "}")
+    private URI apiUrl;
+
+    @Value("${qwen.api-key:" + API_KEY + "}")
+    private String apiKey;
+
+    // 文章生成输出较长，超时比聊天宽松
+    @Value("${qwen.http.article.read-timeout:60s}")
+    private Duration articleReadTimeout;
+
+    @Value("${qwen.http.article.total-timeout:90s}")
+    private Duration articleTotalTimeout;
+
+    @Value("${qwen.http.chat.read-timeout:20s}")
+    private Duration chatReadTimeout;
+
+    @Value("${qwen.http.chat.total-timeout:30s}")
+    private Duration chatTotalTimeout;
+
+    // 整次调用（含排队、重试、对冲）的截止时间
+    @Value("${qwen.resilience.article.deadline:120s}")
+    private Duration articleDeadline;
+
+    @Value("${qwen.resilience.chat.deadline:30s}")
+    private Duration chatDeadline;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
@@ -31,6 +66,15 @@ public class QwenClient {
      * @return 生成的文章JSON（包含title和content）
      */
     public Map<String, String> generateArticle(List<Map<String, String>> words, String difficulty) {
+        return generateArticle(words, difficulty, QwenGovernor.Lane.BACKGROUND);
+    }
+
+    /**
+     * 生成包含指定单词的文章
+     * @param lane 限流通道：后台补充队列用 BACKGROUND，用户正在等待的生成用 INTERACTIVE
+     */
+    public Map<String, String> generateArticle(List<Map<String, String>> words, String difficulty,
+                                               QwenGovernor.Lane lane) {
         try {
             // 构建 prompt
             String prompt = buildPrompt(words, difficulty);
@@ -50,18 +94,13 @@ public class QwenClient {
             parameters.put("result_format", "message");
             requestBody.put("parameters", parameters);
 
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(API_KEY);
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-            // 发送请求
-            ResponseEntity<String> response = restTemplate.postForEntity(API_URL, entity, String.class);
+            // 发送请求（按调用方指定的通道；失败按策略重试/对冲）
+            String body = objectMapper.writeValueAsString(requestBody);
+            String responseBody = resilience.call("article", articleDeadline,
+                    budget -> send(lane, body, budget, articleReadTimeout, articleTotalTimeout));
 
             // 解析响应
-            return parseResponse(response.getBody());
+            return parseResponse(responseBody);
 
         } catch (Exception e) {
             throw new RuntimeException("调用千问API失败: " + e.getMessage(), e);
@@ -101,32 +140,14 @@ public class QwenClient {
      */
     public String chat(String systemPrompt, String userMessage) {
         try {
-            // 构建 messages
-            List<Map<String, String>> messages = new ArrayList<>();
-            messages.add(Map.of("role", "system", "content", systemPrompt));
-            messages.add(Map.of("role", "user", "content", userMessage));
-
-            // 构建请求体（使用千问 API 的格式）
-            Map<String, Object> input = new HashMap<>();
-            input.put("messages", messages);
+            Map<String, Object> requestBody = buildChatRequestBody(systemPrompt, userMessage, false);
 
-            Map<String, Object> parameters = new HashMap<>();
-            parameters.put("result_format", "message");
-
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", MODEL);
-            requestBody.put("input", input);
-            requestBody.put("parameters", parameters);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + API_KEY);
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> response = restTemplate.postForEntity(API_URL, entity, String.class);
+            String body = objectMapper.writeValueAsString(requestBody);
+            String responseBody = resilience.call("chat", chatDeadline,
+                    budget -> send(QwenGovernor.Lane.INTERACTIVE, body, budget, chatReadTimeout, chatTotalTimeout));
 
             // 解析响应
-            JsonNode root = objectMapper.readTree(response.getBody());
+            JsonNode root = objectMapper.readTree(responseBody);
             JsonNode output = root.path("output");
             JsonNode choices = output.path("choices");
             if (choices.isArray() && choices.size() > 0) {
@@ -139,6 +160,99 @@ public class QwenClient {
         }
     }
 
+    /**
+     * 流式聊天接口：使用千问增量输出，每收到一段新文本就回调 onDelta
+     * @param cancelled 返回 true 时停止读取并断开与千问的连接
+     */
+    public void chatStream(String systemPrompt, String userMessage,
+                           Consumer<String> onDelta, BooleanSupplier cancelled) {
+        try {
+            Map<String, Object> requestBody = buildChatRequestBody(systemPrompt, userMessage, true);
+
+            String body = objectMapper.writeValueAsString(requestBody);
+
+            // 已输出给客户端的内容无法撤回，流式请求只经过熔断判断，不重试
+            resilience.callOnce(() -> {
+                try (QwenGovernor.Permit permit = governor.acquire(QwenGovernor.Lane.INTERACTIVE)) {
+                    transport.stream(apiUrl, apiKey, body,
+                            new QwenHttpTransport.CallOptions(chatReadTimeout, chatTotalTimeout),
+                            line -> {
+                                if (cancelled.getAsBoolean()) {
+                                    return false;
+                                }
+                                // SSE 事件中只有 data 行携带内容
+                                if (!line.startsWith("data:")) {
+                                    return true;
+                                }
+                                JsonNode choice = readTree(line.substring(5)).path("output").path("choices").path(0);
+                                String delta = choice.path("message").path("content").asText("");
+                                if (!delta.isEmpty()) {
+                                    onDelta.accept(delta);
+                                }
+                                return !"stop".equals(choice.path("finish_reason").asText());
+                            });
+                }
+                return null;
+            });
+
+        } catch (Exception e) {
+            throw new RuntimeException("调用千问API失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 单次请求：在剩余时间内获取限流名额并发送
+     */
+    private String send(QwenGovernor.Lane lane, String body, Duration budget,
+                        Duration readTimeout, Duration totalTimeout) {
+        long start = System.nanoTime();
+        try (QwenGovernor.Permit permit = governor.acquireWithin(lane, budget)) {
+            Duration left = budget.minusNanos(System.nanoTime() - start);
+            if (left.isNegative() || left.isZero()) {
+                // 时间耗在本地排队上，请求没有发出：按本地限流处理，不重试、不计入熔断
+                throw new QwenBackpressureException("等待千问调用名额超过截止时间");
+            }
+            return transport.post(apiUrl, apiKey, body, new QwenHttpTransport.CallOptions(
+                    min(readTimeout, left), min(totalTimeout, left)));
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private Map<String, Object> buildChatRequestBody(String systemPrompt, String userMessage, boolean incremental) {
+        // 构建 messages
+        List<Map<String, String>> messages = new ArrayList<>();
+        messages.add(Map.of("role", "system", "content", systemPrompt));
+        messages.add(Map.of("role", "user", "content", userMessage));
+
+        // 构建请求体（使用千问 API 的格式）
+        Map<String, Object> input = new HashMap<>();
+        input.put("messages", messages);
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("result_format", "message");
+        if (incremental) {
+            // 每个事件只返回新增部分，而不是累计全文
+            parameters.put("incremental_output", true);
+        }
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", MODEL);
+        requestBody.put("input", input);
+        requestBody.put("parameters", parameters);
+        return requestBody;
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (Exception e) {
+            throw new RuntimeException("无法解析 AI 流式响应: " + e.getMessage(), e);
+        }
+    }
+
     private Map<String, String> parseResponse(String responseBody) {
         try {
             JsonNode root = objectMapper.readTree(responseBody);
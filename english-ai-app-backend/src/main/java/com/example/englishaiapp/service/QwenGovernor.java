@@ -0,0 +1,199 @@
+package com.example.englishaiapp.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 千问调用全局限流
+ * - 并发上限 + 令牌桶限速，与服务商配额对齐
+ * - 两条优先级通道：有交互请求在排队时，后台请求不会拿到名额；
+ *   后台通道另有并发上限，给交互请求留出余量
+ */
+@Component
+public class QwenGovernor {
+
+    public enum Lane { INTERACTIVE, BACKGROUND }
+
+    /**
+     * 调用名额，用 try-with-resources 归还
+     */
+    public final class Permit implements AutoCloseable {
+        private final Lane lane;
+        private boolean released;
+
+        private Permit(Lane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(lane);
+            }
+        }
+    }
+
+    private static final class LaneStats {
+        int waiting;
+        int inUse;
+        long acquired;
+        long timeouts;
+        long totalWaitNanos;
+        long maxWaitNanos;
+    }
+
+    private final int maxConcurrent;
+    private final int backgroundMaxConcurrent;
+    private final double permitsPerSecond;
+    private final double burst;
+    private final Duration interactiveMaxWait;
+    private final Duration backgroundMaxWait;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<Lane, LaneStats> stats = Map.of(Lane.INTERACTIVE, new LaneStats(), Lane.BACKGROUND, new LaneStats());
+
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    public QwenGovernor(@Value("${qwen.governor.max-concurrent:8}") int maxConcurrent,
+                        @Value("${qwen.governor.background-max-concurrent:4}") int backgroundMaxConcurrent,
+                        @Value("${qwen.governor.permits-per-second:5}") double permitsPerSecond,
+                        @Value("${qwen.governor.burst:10}") double burst,
+                        @Value("${qwen.governor.interactive.max-wait:10s}") Duration interactiveMaxWait,
+                        @Value("${qwen.governor.background.max-wait:120s}") Duration backgroundMaxWait) {
+        this.maxConcurrent = maxConcurrent;
+        this.backgroundMaxConcurrent = Math.min(backgroundMaxConcurrent, maxConcurrent);
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.interactiveMaxWait = interactiveMaxWait;
+        this.backgroundMaxWait = backgroundMaxWait;
+        this.tokens = burst;
+    }
+
+    /**
+     * 按通道默认的最长等待时间获取名额
+     */
+    public Permit acquire(Lane lane) {
+        return acquire(lane, lane == Lane.INTERACTIVE ? interactiveMaxWait : backgroundMaxWait);
+    }
+
+    /**
+     * 在调用剩余时间内获取名额（不超过通道默认的最长等待时间）
+     */
+    public Permit acquireWithin(Lane lane, Duration budget) {
+        Duration laneMaxWait = lane == Lane.INTERACTIVE ? interactiveMaxWait : backgroundMaxWait;
+        return acquire(lane, budget.compareTo(laneMaxWait) < 0 ? budget : laneMaxWait);
+    }
+
+    /**
+     * 获取名额，超过 maxWait 仍未拿到则抛出 QwenBackpressureException
+     */
+    public Permit acquire(Lane lane, Duration maxWait) {
+        long start = System.nanoTime();
+        long deadline = start + maxWait.toNanos();
+        LaneStats laneStats = stats.get(lane);
+
+        lock.lock();
+        laneStats.waiting++;
+        try {
+            while (true) {
+                refillTokens();
+                if (canProceed(lane)) {
+                    break;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    laneStats.timeouts++;
+                    throw new QwenBackpressureException("千问调用排队超时");
+                }
+                // 名额够但令牌不足时，只需等到下一个令牌产生
+                long wait = remaining;
+                if (tokens < 1 && permitsPerSecond > 0) {
+                    wait = Math.min(wait, (long) ((1 - tokens) / permitsPerSecond * TimeUnit.SECONDS.toNanos(1)) + 1);
+                }
+                changed.awaitNanos(wait);
+            }
+
+            tokens -= 1;
+            laneStats.inUse++;
+            laneStats.acquired++;
+            long waited = System.nanoTime() - start;
+            laneStats.totalWaitNanos += waited;
+            laneStats.maxWaitNanos = Math.max(laneStats.maxWaitNanos, waited);
+            return new Permit(lane);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QwenBackpressureException("等待千问调用名额被中断", e);
+        } finally {
+            laneStats.waiting--;
+            // 自己离开队列可能让其他通道满足条件（例如交互请求超时后后台请求可以继续）
+            changed.signalAll();
+            lock.unlock();
+        }
+    }
+
+    private boolean canProceed(Lane lane) {
+        if (tokens < 1) {
+            return false;
+        }
+        LaneStats interactive = stats.get(Lane.INTERACTIVE);
+        LaneStats background = stats.get(Lane.BACKGROUND);
+        if (interactive.inUse + background.inUse >= maxConcurrent) {
+            return false;
+        }
+        if (lane == Lane.BACKGROUND) {
+            return interactive.waiting == 0 && background.inUse < backgroundMaxConcurrent;
+        }
+        return true;
+    }
+
+    private void refillTokens() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+    }
+
+    private void release(Lane lane) {
+        lock.lock();
+        try {
+            stats.get(lane).inUse--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 运行指标快照（各通道排队数、占用数、等待时间）
+     */
+    public Map<String, Object> metrics() {
+        lock.lock();
+        try {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            for (Lane lane : Lane.values()) {
+                LaneStats laneStats = stats.get(lane);
+                Map<String, Object> laneMetrics = new LinkedHashMap<>();
+                laneMetrics.put("queueDepth", laneStats.waiting);
+                laneMetrics.put("inUse", laneStats.inUse);
+                laneMetrics.put("acquired", laneStats.acquired);
+                laneMetrics.put("timeouts", laneStats.timeouts);
+                laneMetrics.put("avgWaitMillis", laneStats.acquired == 0 ? 0
+                        : TimeUnit.NANOSECONDS.toMillis(laneStats.totalWaitNanos / laneStats.acquired));
+                laneMetrics.put("maxWaitMillis", TimeUnit.NANOSECONDS.toMillis(laneStats.maxWaitNanos));
+                metrics.put(lane.name().toLowerCase(), laneMetrics);
+            }
+            return metrics;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
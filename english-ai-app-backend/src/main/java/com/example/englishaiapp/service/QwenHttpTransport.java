@@ -0,0 +1,178 @@
+package com.example.englishaiapp.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * 千问API的HTTP传输层
+ * - 基于 JDK HttpClient：连接复用（keep-alive）、优先 HTTP/2
+ * - 连接超时、响应超时、总时长超时分别可配
+ * - 并发请求数有上限，超出时在总时长内排队等待
+ */
+@Component
+public class QwenHttpTransport {
+
+    /**
+     * 单次调用的超时设置
+     * @param readTimeout 发出请求到收到响应头的最长时间
+     * @param totalTimeout 包含排队等待和读取响应体在内的总时长
+     */
+    public record CallOptions(Duration readTimeout, Duration totalTimeout) {}
+
+    private final HttpClient httpClient;
+    private final Semaphore connectionPermits;
+
+    // 流式响应到达总时长后由它关闭输入流，避免卡住的连接一直占用线程
+    private final ScheduledExecutorService deadlineWatchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "qwen-stream-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public QwenHttpTransport(@Value("${qwen.http.connect-timeout:5s}") Duration connectTimeout,
+                             @Value("${qwen.http.max-connections:32}") int maxConnections) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.connectionPermits = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * 发送 JSON POST 请求并返回响应体
+     */
+    public String post(URI uri, String apiKey, String jsonBody, CallOptions options) {
+        long deadline = System.nanoTime() + options.totalTimeout().toNanos();
+        acquirePermit(options.totalTimeout());
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(options.readTimeout())
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", "Bearer " + apiKey)
+                    .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                    .build();
+
+            CompletableFuture<HttpResponse<String>> future =
+                    httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = await(future, deadline);
+
+            if (response.statusCode() / 100 != 2) {
+                throw new QwenApiException("千问API返回状态码 " + response.statusCode(), response.statusCode());
+            }
+            return response.body();
+        } finally {
+            connectionPermits.release();
+        }
+    }
+
+    /**
+     * 发送 SSE 流式请求，逐行回调响应内容
+     * onLine 返回 false 时停止读取并关闭连接（用于客户端取消）
+     */
+    public void stream(URI uri, String apiKey, String jsonBody, CallOptions options, Predicate<String> onLine) {
+        long deadline = System.nanoTime() + options.totalTimeout().toNanos();
+        acquirePermit(options.totalTimeout());
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(options.readTimeout())
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "text/event-stream")
+                    .header("Authorization", "Bearer " + apiKey)
+                    .header("X-DashScope-SSE", "enable")
+                    .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                    .build();
+
+            HttpResponse<InputStream> response = await(
+                    httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream()), deadline);
+
+            try (InputStream body = response.body()) {
+                if (response.statusCode() / 100 != 2) {
+                    throw new QwenApiException("千问API返回状态码 " + response.statusCode(), response.statusCode());
+                }
+
+                ScheduledFuture<?> watchdog = deadlineWatchdog.schedule(() -> closeQuietly(body),
+                        Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                try {
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!onLine.test(line)) {
+                            return;
+                        }
+                    }
+                } catch (IOException e) {
+                    if (System.nanoTime() - deadline >= 0) {
+                        throw new QwenApiException("请求总时长超时", -1, e);
+                    }
+                    throw new QwenApiException("读取流式响应失败: " + e.getMessage(), -1, e);
+                } finally {
+                    watchdog.cancel(false);
+                }
+            } catch (IOException e) {
+                // 关闭输入流失败不影响结果
+            }
+        } finally {
+            connectionPermits.release();
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // 已关闭
+        }
+    }
+
+    private void acquirePermit(Duration timeout) {
+        try {
+            if (!connectionPermits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new QwenBackpressureException("等待可用连接超时");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QwenBackpressureException("等待可用连接被中断", e);
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new QwenApiException("请求总时长超时", -1, e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new QwenApiException("请求被中断", -1, e);
+        } catch (ExecutionException e) {
+            throw new QwenApiException("请求失败: " + e.getCause().getMessage(), -1, e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deadlineWatchdog.shutdownNow();
+    }
+}
@@ -0,0 +1,451 @@
+package com.example.englishaiapp.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 千问调用容错层
+ * - 截止时间：整次调用（含排队、重试、对冲）不超过给定时长，每次尝试拿到的是剩余时间
+ * - 重试预算：每个请求存入 retry-ratio 个令牌，每次重试/对冲消耗 1 个，重试量不会超过流量的固定比例
+ * - 对冲请求：尝试耗时超过该操作历史延迟的指定分位数后，再并行发一个相同请求，取先成功的结果
+ * - 熔断：最近窗口内失败率过高时直接失败，冷却后放一个探测请求，成功才恢复
+ * - 本地限流（QwenBackpressureException）既不重试也不计入熔断
+ */
+@Component
+public class QwenResilience {
+
+    private enum CircuitState { CLOSED, OPEN, HALF_OPEN }
+
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final double retryRatio;
+    private final double maxRetryTokens;
+
+    private final boolean hedgeEnabled;
+    private final double hedgePercentile;
+    private final int hedgeMinSamples;
+
+    private final int circuitWindowSize;
+    private final int circuitMinCalls;
+    private final double circuitFailureRate;
+    private final Duration circuitOpenDuration;
+
+    private final ThreadPoolExecutor attemptExecutor;
+
+    // 重试预算
+    private double retryTokens;
+
+    // 熔断状态（由 this 加锁保护）
+    private CircuitState circuitState = CircuitState.CLOSED;
+    private final boolean[] outcomes;
+    private int outcomeIndex;
+    private int outcomeCount;
+    private int failureCount;
+    private long openedAtNanos;
+    private boolean probeInFlight;
+    private long probeId;
+
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong retriesDenied = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong shortCircuited = new AtomicLong();
+    private final AtomicLong deadlineExceeded = new AtomicLong();
+    private final AtomicLong localBackpressure = new AtomicLong();
+
+    public QwenResilience(@Value("${qwen.resilience.max-attempts:3}") int maxAttempts,
+                          @Value("${qwen.resilience.initial-backoff:200ms}") Duration initialBackoff,
+                          @Value("${qwen.resilience.retry-ratio:0.1}") double retryRatio,
+                          @Value("${qwen.resilience.max-retry-tokens:10}") double maxRetryTokens,
+                          @Value("${qwen.resilience.hedge.enabled:true}") boolean hedgeEnabled,
+                          @Value("${qwen.resilience.hedge.percentile:0.95}") double hedgePercentile,
+                          @Value("${qwen.resilience.hedge.min-samples:20}") int hedgeMinSamples,
+                          @Value("${qwen.resilience.hedge.max-threads:16}") int hedgeMaxThreads,
+                          @Value("${qwen.resilience.circuit.window-size:20}") int circuitWindowSize,
+                          @Value("${qwen.resilience.circuit.min-calls:10}") int circuitMinCalls,
+                          @Value("${qwen.resilience.circuit.failure-rate:0.5}") double circuitFailureRate,
+                          @Value("${qwen.resilience.circuit.open-duration:30s}") Duration circuitOpenDuration) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.retryRatio = retryRatio;
+        this.maxRetryTokens = maxRetryTokens;
+        this.retryTokens = maxRetryTokens;
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinSamples = hedgeMinSamples;
+        this.circuitWindowSize = circuitWindowSize;
+        this.circuitMinCalls = circuitMinCalls;
+        this.circuitFailureRate = circuitFailureRate;
+        this.circuitOpenDuration = circuitOpenDuration;
+        this.outcomes = new boolean[circuitWindowSize];
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.attemptExecutor = new ThreadPoolExecutor(
+                0, hedgeMaxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "qwen-hedge-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * 在截止时间内执行调用，按策略重试和对冲
+     * @param operation 操作名（用于分别统计延迟）
+     * @param deadline 整次调用的最长时长
+     * @param attempt 单次尝试，参数为本次尝试可用的剩余时间
+     */
+    public <T> T call(String operation, Duration deadline, Function<Duration, T> attempt) {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        depositRetryToken();
+
+        for (int attemptNo = 1; ; attemptNo++) {
+            long probe = acquireCircuit();
+            try {
+                T result = attemptWithHedge(operation, deadlineNanos, attempt);
+                onAttemptSuccess();
+                return result;
+            } catch (RuntimeException e) {
+                recordFailure(e);
+                boolean retryable = isRetryable(e);
+
+                long backoff = backoffNanos(attemptNo);
+                if (!retryable || attemptNo >= maxAttempts || remaining(deadlineNanos) <= backoff) {
+                    throw e;
+                }
+                if (!withdrawRetryToken()) {
+                    retriesDenied.incrementAndGet();
+                    throw e;
+                }
+                retries.incrementAndGet();
+                sleep(backoff);
+            } finally {
+                releaseProbe(probe);
+            }
+        }
+    }
+
+    /**
+     * 只做熔断判断的调用（流式请求已经向客户端输出内容，不能重试或对冲）
+     */
+    public <T> T callOnce(Supplier<T> attempt) {
+        long probe = acquireCircuit();
+        try {
+            T result = attempt.get();
+            onAttemptSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            recordFailure(e);
+            throw e;
+        } finally {
+            releaseProbe(probe);
+        }
+    }
+
+    /**
+     * 按失败类型更新熔断窗口：服务商故障计为失败；参数错误等计为成功；本地限流不计入
+     */
+    private void recordFailure(RuntimeException e) {
+        if (isBackpressure(e)) {
+            localBackpressure.incrementAndGet();
+        } else if (isRetryable(e)) {
+            onAttemptFailure();
+        } else {
+            // 参数错误等不代表服务商故障
+            onAttemptSuccess();
+        }
+    }
+
+    private <T> T attemptWithHedge(String operation, long deadlineNanos, Function<Duration, T> attempt) {
+        LatencyWindow latency = latencies.computeIfAbsent(operation, k -> new LatencyWindow(256));
+        long hedgeDelay = hedgeEnabled ? latency.percentile(hedgePercentile, hedgeMinSamples) : -1;
+
+        if (hedgeDelay < 0) {
+            return timed(latency, deadlineNanos, attempt);
+        }
+
+        CompletionService<T> completion = new ExecutorCompletionService<>(attemptExecutor);
+        List<Future<T>> futures = new ArrayList<>(2);
+        try {
+            futures.add(completion.submit(() -> timed(latency, deadlineNanos, attempt)));
+        } catch (RejectedExecutionException e) {
+            // 线程用完时不对冲，直接在当前线程执行
+            return timed(latency, deadlineNanos, attempt);
+        }
+
+        try {
+            Future<T> done = completion.poll(Math.min(hedgeDelay, remaining(deadlineNanos)), TimeUnit.NANOSECONDS);
+            int outstanding = 1;
+            if (done == null && remaining(deadlineNanos) > 0 && withdrawRetryToken()) {
+                try {
+                    futures.add(completion.submit(() -> timed(latency, deadlineNanos, attempt)));
+                    outstanding++;
+                    hedges.incrementAndGet();
+                } catch (RejectedExecutionException e) {
+                    // 没有空闲线程就继续等第一个请求
+                }
+            }
+
+            RuntimeException lastError = null;
+            while (outstanding > 0) {
+                if (done == null) {
+                    done = completion.poll(remaining(deadlineNanos), TimeUnit.NANOSECONDS);
+                    if (done == null) {
+                        deadlineExceeded.incrementAndGet();
+                        throw new QwenApiException("千问调用超过截止时间", -1);
+                    }
+                }
+                outstanding--;
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    lastError = e.getCause() instanceof RuntimeException cause
+                            ? cause : new QwenApiException(e.getCause().getMessage(), -1, e.getCause());
+                }
+                done = null;
+            }
+            throw lastError;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QwenApiException("千问调用被中断", -1, e);
+        } finally {
+            // 取消仍在进行的另一个请求，中断会关闭其HTTP连接
+            futures.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private <T> T timed(LatencyWindow latency, long deadlineNanos, Function<Duration, T> attempt) {
+        long remaining = remaining(deadlineNanos);
+        if (remaining <= 0) {
+            deadlineExceeded.incrementAndGet();
+            throw new QwenApiException("千问调用超过截止时间", -1);
+        }
+        long start = System.nanoTime();
+        T result = attempt.apply(Duration.ofNanos(remaining));
+        latency.record(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * 429、5xx 以及超时、连接失败可以重试；其余 4xx、解析错误和本地限流不重试
+     */
+    private boolean isRetryable(RuntimeException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof QwenBackpressureException) {
+                return false;
+            }
+            if (t instanceof QwenApiException api) {
+                int status = api.getStatusCode();
+                return status == -1 || status == 429 || status >= 500;
+            }
+        }
+        return false;
+    }
+
+    private boolean isBackpressure(RuntimeException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof QwenApiException) {
+                return t instanceof QwenBackpressureException;
+            }
+        }
+        return false;
+    }
+
+    private long backoffNanos(int attemptNo) {
+        long base = initialBackoff.toNanos() << Math.min(attemptNo - 1, 10);
+        // 随机抖动，避免大量请求同时重试
+        return base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+
+    private static long remaining(long deadlineNanos) {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    private static void sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QwenApiException("千问调用被中断", -1, e);
+        }
+    }
+
+    // ---------- 重试预算 ----------
+
+    private synchronized void depositRetryToken() {
+        retryTokens = Math.min(maxRetryTokens, retryTokens + retryRatio);
+    }
+
+    private synchronized boolean withdrawRetryToken() {
+        if (retryTokens >= 1) {
+            retryTokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    // ---------- 熔断 ----------
+
+    /**
+     * @return 本次调用是半开状态的探测请求时返回探测编号，否则返回 0（交给 releaseProbe）
+     */
+    private synchronized long acquireCircuit() {
+        if (circuitState == CircuitState.OPEN) {
+            if (System.nanoTime() - openedAtNanos < circuitOpenDuration.toNanos()) {
+                shortCircuited.incrementAndGet();
+                throw new QwenApiException("千问服务暂不可用，请稍后再试", 503);
+            }
+            circuitState = CircuitState.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (circuitState == CircuitState.HALF_OPEN) {
+            if (probeInFlight) {
+                shortCircuited.incrementAndGet();
+                throw new QwenApiException("千问服务暂不可用，请稍后再试", 503);
+            }
+            probeInFlight = true;
+            return ++probeId;
+        }
+        return 0;
+    }
+
+    /**
+     * 探测请求结束时调用（finally）：没有得出结论（本地限流、Error 等）时放开探测名额，
+     * 让下一个请求继续探测，避免熔断器一直停在半开状态
+     */
+    private synchronized void releaseProbe(long probe) {
+        if (probe != 0 && probe == probeId && circuitState == CircuitState.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    private synchronized void onAttemptSuccess() {
+        if (circuitState == CircuitState.HALF_OPEN) {
+            circuitState = CircuitState.CLOSED;
+            resetWindow();
+            return;
+        }
+        recordOutcome(false);
+    }
+
+    private synchronized void onAttemptFailure() {
+        if (circuitState == CircuitState.HALF_OPEN) {
+            openCircuit();
+            return;
+        }
+        recordOutcome(true);
+        if (outcomeCount >= circuitMinCalls && (double) failureCount / outcomeCount >= circuitFailureRate) {
+            openCircuit();
+        }
+    }
+
+    private void recordOutcome(boolean failure) {
+        if (outcomeCount == circuitWindowSize) {
+            if (outcomes[outcomeIndex]) {
+                failureCount--;
+            }
+        } else {
+            outcomeCount++;
+        }
+        outcomes[outcomeIndex] = failure;
+        if (failure) {
+            failureCount++;
+        }
+        outcomeIndex = (outcomeIndex + 1) % circuitWindowSize;
+    }
+
+    private void openCircuit() {
+        circuitState = CircuitState.OPEN;
+        openedAtNanos = System.nanoTime();
+        probeInFlight = false;
+        resetWindow();
+        System.err.println("千问调用失败率过高，熔断 " + circuitOpenDuration.toSeconds() + " 秒");
+    }
+
+    private void resetWindow() {
+        Arrays.fill(outcomes, false);
+        outcomeIndex = 0;
+        outcomeCount = 0;
+        failureCount = 0;
+    }
+
+    /**
+     * 运行指标快照
+     */
+    public synchronized Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("circuitState", circuitState.name());
+        metrics.put("shortCircuited", shortCircuited.get());
+        metrics.put("retries", retries.get());
+        metrics.put("retriesDenied", retriesDenied.get());
+        metrics.put("retryTokens", retryTokens);
+        metrics.put("hedges", hedges.get());
+        metrics.put("deadlineExceeded", deadlineExceeded.get());
+        metrics.put("localBackpressure", localBackpressure.get());
+        Map<String, Object> hedgeDelays = new LinkedHashMap<>();
+        latencies.forEach((operation, window) ->
+                hedgeDelays.put(operation, TimeUnit.NANOSECONDS.toMillis(
+                        Math.max(0, window.percentile(hedgePercentile, hedgeMinSamples)))));
+        metrics.put("hedgeDelayMillis", hedgeDelays);
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        attemptExecutor.shutdownNow();
+    }
+
+    /**
+     * 最近 N 次成功尝试的耗时
+     */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private int index;
+        private int count;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void record(long nanos) {
+            samples[index] = nanos;
+            index = (index + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /**
+         * 样本不足时返回 -1
+         */
+        synchronized long percentile(double p, int minSamples) {
+            if (count < minSamples) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[Math.max(0, Math.min(count - 1, (int) Math.ceil(p * count) - 1))];
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.englishaiapp.service;
+
+import com.example.englishaiapp.repository.UserWordMasteryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动时为已有学习记录补齐复习调度字段
+ * 复习单词按 next_due_at 查询，为空的记录永远不会到期；规则与 db/backfill_review_schedule.sql 相同，
+ * 只处理 next_due_at 为空的记录，每次启动执行都是安全的。分批更新，避免一次锁住大量行
+ */
+@Component
+public class ReviewScheduleBackfill {
+
+    @Autowired
+    private UserWordMasteryRepository userWordMasteryRepository;
+
+    @Autowired
+    private ReviewScheduler reviewScheduler;
+
+    // 每批更新的行数
+    @Value("${learning.scheduler.backfill.batch-size:1000}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long start = System.currentTimeMillis();
+        int total = 0;
+        try {
+            int updated;
+            do {
+                updated = reviewScheduler.schedulesMasteredWords()
+                        ? userWordMasteryRepository.backfillReviewSchedule(batchSize)
+                        : userWordMasteryRepository.backfillUnmasteredDue(batchSize);
+                total += updated;
+            } while (updated == batchSize);
+        } catch (RuntimeException e) {
+            System.err.println("补齐复习调度失败（已补齐 " + total + " 条），可手动执行 db/backfill_review_schedule.sql: "
+                    + e.getMessage());
+            return;
+        }
+        if (total > 0) {
+            System.out.println("已补齐复习调度: " + total + " 条, 耗时 " + (System.currentTimeMillis() - start) + "ms");
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.englishaiapp.service;
+
+import com.example.englishaiapp.domain.UserWordMastery;
+
+import java.time.LocalDateTime;
+
+/**
+ * 复习调度策略：根据一次答题结果计算单词的下次复习时间（nextDueAt）
+ * 复习单词按 (user_id, next_due_at) 索引取出到期的单词
+ * 通过 learning.scheduler 选择实现：sm2（默认）或 score（按掌握度阈值，与原逻辑一致）
+ */
+public interface ReviewScheduler {
+
+    /**
+     * 记录一次答题，更新调度字段
+     * 调用前 masteryScore 已按答题结果更新
+     */
+    void schedule(UserWordMastery mastery, boolean correct, LocalDateTime answeredAt);
+
+    /**
+     * 已掌握（分数 >= 6）的单词是否也安排复习（决定启动时如何补齐已有记录的 nextDueAt）
+     */
+    boolean schedulesMasteredWords();
+}
@@ -18,4 +18,9 @@ public interface UserStatsService {
      * 获取排行榜信息
      */
     Map<String, Object> getLeaderboard(Long userId);
+
+    /**
+     * 获取排行榜前 limit 名
+     */
+    Map<String, Object> getLeaderboardTop(int limit);
 }
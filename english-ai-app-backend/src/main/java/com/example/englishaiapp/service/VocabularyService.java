@@ -4,5 +4,7 @@ import java.util.Map;
 
 public interface VocabularyService {
     Map<String, Object> getUserVocabulary(Long userId, int page, int size);
+    // 游标分页：cursor 为空表示第一页，返回 nextCursor（没有下一页时为 null）
+    Map<String, Object> getUserVocabularyAfter(Long userId, String cursor, int size);
     Map<String, Object> getVocabularyStats(Long userId);
 }
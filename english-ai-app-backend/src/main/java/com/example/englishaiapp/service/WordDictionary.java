@@ -0,0 +1,161 @@
+package com.example.englishaiapp.service;
+
+import com.example.englishaiapp.domain.Word;
+import com.example.englishaiapp.dto.WordDTO;
+import com.example.englishaiapp.repository.WordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 单词词典（只读内存副本）
+ * words 表导入后基本不变，启动时整体加载：
+ * - 按 ID 偏移存放的数组，ID 查询是一次数组下标访问
+ * - 升序 ID 数组，用于从某个 ID 之后按顺序取单词（学习指针）
+ * - 单词（小写）到 Word 的映射
+ * - 每个单词预先编码好的 WordDTO JSON（UTF-8），学习任务响应直接拼接
+ * 导入新词库后调用 reload() 整体替换；返回的 Word 在所有请求间共享，调用方不得修改
+ */
+@Component
+public class WordDictionary {
+
+    private record Snapshot(long minId, Word[] byOffset, byte[][] jsonByOffset, long[] sortedIds, Map<String, Word> byWord) {}
+
+    private static final Snapshot EMPTY = new Snapshot(0, new Word[0], new byte[0][], new long[0], Map.of());
+
+    @Autowired
+    private WordRepository wordRepository;
+
+    // 使用 Spring 的 ObjectMapper，编码结果与 WordDTO 经由 Spring MVC 序列化一致
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile Snapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        List<Word> words = wordRepository.findAll(Sort.by("id"));
+        if (words.isEmpty()) {
+            snapshot = EMPTY;
+            return;
+        }
+
+        long minId = words.get(0).getId();
+        long maxId = words.get(words.size() - 1).getId();
+        Word[] byOffset = new Word[(int) (maxId - minId + 1)];
+        byte[][] jsonByOffset = new byte[byOffset.length][];
+        long[] sortedIds = new long[words.size()];
+        Map<String, Word> byWord = new HashMap<>(words.size() * 2);
+        for (int i = 0; i < words.size(); i++) {
+            Word word = words.get(i);
+            byOffset[(int) (word.getId() - minId)] = word;
+            jsonByOffset[(int) (word.getId() - minId)] = encode(word);
+            sortedIds[i] = word.getId();
+            if (word.getWord() != null) {
+                byWord.putIfAbsent(word.getWord().toLowerCase(), word);
+            }
+        }
+        snapshot = new Snapshot(minId, byOffset, jsonByOffset, sortedIds, byWord);
+        System.out.println("单词词典已加载: " + words.size() + " 个单词");
+    }
+
+    public Optional<Word> get(Long id) {
+        return Optional.ofNullable(lookup(current(), id));
+    }
+
+    /**
+     * 按传入顺序返回存在的单词
+     */
+    public List<Word> getAll(Collection<Long> ids) {
+        Snapshot current = current();
+        List<Word> words = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Word word = lookup(current, id);
+            if (word != null) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * 单词对应的 WordDTO JSON（UTF-8）；不在词典中的单词现场编码
+     * 返回的数组在所有请求间共享，调用方不得修改
+     */
+    public byte[] json(Word word) {
+        Snapshot current = current();
+        long offset = word.getId() - current.minId();
+        if (offset >= 0 && offset < current.jsonByOffset().length && current.byOffset()[(int) offset] == word) {
+            return current.jsonByOffset()[(int) offset];
+        }
+        return encode(word);
+    }
+
+    public Optional<Word> findByWord(String word) {
+        return word == null ? Optional.empty() : Optional.ofNullable(current().byWord().get(word.toLowerCase()));
+    }
+
+    /**
+     * ID 大于 afterId 的前 limit 个单词（按 ID 升序）
+     */
+    public List<Word> after(long afterId, int limit) {
+        Snapshot current = current();
+        int index = Arrays.binarySearch(current.sortedIds(), afterId);
+        int from = index >= 0 ? index + 1 : -index - 1;
+        int to = Math.min(current.sortedIds().length, from + limit);
+
+        List<Word> words = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            words.add(lookup(current, current.sortedIds()[i]));
+        }
+        return words;
+    }
+
+    public int size() {
+        return current().sortedIds().length;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private byte[] encode(Word word) {
+        try {
+            return objectMapper.writeValueAsBytes(new WordDTO(word));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("单词 " + word.getId() + " 编码失败", e);
+        }
+    }
+
+    private static Word lookup(Snapshot snapshot, Long id) {
+        if (id == null) {
+            return null;
+        }
+        long offset = id - snapshot.minId();
+        if (offset < 0 || offset >= snapshot.byOffset().length) {
+            return null;
+        }
+        return snapshot.byOffset()[(int) offset];
+    }
+}
@@ -1,24 +1,40 @@
 package com.example.englishaiapp.service.impl;
 
-import com.example.englishaiapp.domain.ArticleTemplate;
 import com.example.englishaiapp.domain.User;
 import com.example.englishaiapp.domain.UserArticle;
+import com.example.englishaiapp.domain.UserArticleWord;
 import com.example.englishaiapp.domain.UserWordMastery;
 import com.example.englishaiapp.domain.Word;
 import com.example.englishaiapp.dto.ArticleResponse;
-import com.example.englishaiapp.repository.ArticleTemplateRepository;
+import com.example.englishaiapp.dto.WordProgressBatchRequest;
 import com.example.englishaiapp.repository.UserArticleRepository;
+import com.example.englishaiapp.repository.UserArticleWordRepository;
 import com.example.englishaiapp.repository.UserRepository;
 import com.example.englishaiapp.repository.UserWordMasteryRepository;
-import com.example.englishaiapp.repository.WordRepository;
+import com.example.englishaiapp.service.ArticleContentCache;
+import com.example.englishaiapp.service.ArticlePrefillWorker;
+import com.example.englishaiapp.service.ArticleTemplateCache;
 import com.example.englishaiapp.service.ArticleService;
+import com.example.englishaiapp.service.MasteryChangedEvent;
+import com.example.englishaiapp.service.MasteryStatsTracker;
 import com.example.englishaiapp.service.QwenClient;
+import com.example.englishaiapp.service.QwenGovernor;
+import com.example.englishaiapp.service.ReviewScheduler;
+import com.example.englishaiapp.service.WordDictionary;
+import com.example.englishaiapp.util.SingleFlight;
+import com.example.englishaiapp.util.TransactionCallbacks;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -31,7 +47,7 @@ public class ArticleServiceImpl implements ArticleService {
     private UserWordMasteryRepository userWordMasteryRepository;
 
     @Autowired
-    private WordRepository wordRepository;
+    private WordDictionary wordDictionary;
 
     @Autowired
     private QwenClient qwenClient;
@@ -40,15 +56,54 @@ public class ArticleServiceImpl implements ArticleService {
     private UserArticleRepository userArticleRepository;
 
     @Autowired
-    private ArticleTemplateRepository articleTemplateRepository;
+    private UserRepository userRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserArticleWordRepository userArticleWordRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ArticlePrefillWorker articlePrefillWorker;
+
+    @Autowired
+    private ArticleContentCache articleContentCache;
+
+    @Autowired
+    private ArticleTemplateCache articleTemplateCache;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private ReviewScheduler reviewScheduler;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MasteryStatsTracker masteryStatsTracker;
+
+    // 预编码响应中单词状态写成裸值占位符（不是合法 JSON 值，任何字符串内容编码后都不会出现 "state":@）
+    private static final String STATE_PLACEHOLDER = "@";
+    private static final String STATE_FIELD = "\"state\":";
+    private static final String ENCODED_STATE_PLACEHOLDER = STATE_FIELD + STATE_PLACEHOLDER;
+
+    // 每个用户保持的 READY 文章数量
+    @Value("${article.prefill.target-ready:2}")
+    private int targetReadyCount;
+
+    // 使用 Spring 的 ObjectMapper，预编码结果与 ArticleResponse 经由 Spring MVC 序列化一致
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 按用户合并进行中的定制文章生成
+    private final SingleFlight<Long, UserArticle> customArticleGenerations = new SingleFlight<>();
 
     @Override
     public ArticleResponse generateArticle(Long userId, String difficulty) {
+        return generateArticle(userId, difficulty, QwenGovernor.Lane.BACKGROUND);
+    }
+
+    private ArticleResponse generateArticle(Long userId, String difficulty, QwenGovernor.Lane lane) {
         // 1. 获取用户掌握度最低的8个单词
         List<UserWordMastery> masteryList = userWordMasteryRepository
                 .findTop8ByUserIdOrderByMasteryScore(userId, PageRequest.of(0, 8));
@@ -62,7 +117,7 @@ public class ArticleServiceImpl implements ArticleService {
                 .map(UserWordMastery::getWordId)
                 .collect(Collectors.toList());
         
-        List<Word> words = wordRepository.findAllById(wordIds);
+        List<Word> words = wordDictionary.getAll(wordIds);
         
         if (words.size() < 8) {
             throw new RuntimeException("NO_WORDS_AVAILABLE");
@@ -80,8 +135,13 @@ public class ArticleServiceImpl implements ArticleService {
             wordInfoList.add(wordInfo);
         }
 
-        // 4. 调用千问生成文章
-        Map<String, String> article = qwenClient.generateArticle(wordInfoList, difficulty);
+        // 4. 相同单词集合和难度优先复用已生成的文章，否则调用千问生成（同时未命中的请求合并为一次生成）
+        String cacheKey = ArticleContentCache.key(
+                words.stream().map(Word::getId).collect(Collectors.toList()), difficulty);
+        ArticleContentCache.CachedArticle article = articleContentCache.getOrGenerate(cacheKey, userId, () -> {
+            Map<String, String> generated = qwenClient.generateArticle(wordInfoList, difficulty, lane);
+            return new ArticleContentCache.CachedArticle(generated.get("title"), generated.get("content"));
+        });
 
         // 5. 构建单词库（打乱顺序）
         List<ArticleResponse.WordItem> wordBank = words.stream()
@@ -101,46 +161,63 @@ public class ArticleServiceImpl implements ArticleService {
 
         // 6. 构建响应
         ArticleResponse response = new ArticleResponse();
-        response.setTitle(article.get("title"));
-        response.setContent(article.get("content"));
+        response.setTitle(article.title());
+        response.setContent(article.content());
         response.setWordBank(wordBank);
 
         return response;
     }
 
     @Override
-    public ArticleResponse getNextArticle(Long userId, String type) {
+    public ArticleResponse getNextArticle(Long userId, String type, String difficulty) {
         if ("generic".equalsIgnoreCase(type)) {
-            // 通用模式：从模板库随机取一篇
-            ArticleTemplate template = articleTemplateRepository.findRandomArticle()
+            // 通用模式：从内存缓存随机抽一篇模板（已转换好的响应，不查库）
+            return articleTemplateCache.pickRandom(userId, difficulty)
                     .orElseThrow(() -> new RuntimeException("NO_GENERIC_ARTICLES"));
-            
-            return convertTemplateToResponse(template);
         } else if ("custom".equalsIgnoreCase(type)) {
-            // 定制模式：检查用户是否解锁
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("USER_NOT_FOUND"));
-            
-            if (!Boolean.TRUE.equals(user.getArticlesUnlocked())) {
-                throw new RuntimeException("ARTICLES_NOT_UNLOCKED");
-            }
+            return convertUserArticleToResponse(nextCustomArticle(userId));
+        } else {
+            throw new RuntimeException("INVALID_TYPE");
+        }
+    }
 
-            // 从队列取最早的一篇 READY 文章
-            Optional<UserArticle> articleOpt = userArticleRepository
-                    .findFirstByUserIdAndStatusOrderByCreatedAtAsc(userId, "READY");
+    @Override
+    public String getNextCustomArticleJson(Long userId) {
+        UserArticle article = nextCustomArticle(userId);
 
-            if (articleOpt.isEmpty()) {
-                // 队列为空，立即生成一篇
-                generateAndStoreCustomArticle(userId);
-                articleOpt = userArticleRepository
-                        .findFirstByUserIdAndStatusOrderByCreatedAtAsc(userId, "READY");
-            }
+        String json = article.getResponseJson() != null ? fillResponseJson(article) : null;
+        if (json != null) {
+            return json;
+        }
+        // 旧文章（或单词行与编码内容对不上）：按对象构建后序列化
+        try {
+            return objectMapper.writeValueAsString(convertUserArticleToResponse(article));
+        } catch (Exception e) {
+            throw new RuntimeException("ARTICLE_ENCODE_FAILED");
+        }
+    }
 
-            UserArticle article = articleOpt.orElseThrow(() -> new RuntimeException("GENERATION_FAILED"));
-            return convertUserArticleToResponse(article);
-        } else {
-            throw new RuntimeException("INVALID_TYPE");
+    /**
+     * 取用户下一篇定制文章
+     */
+    private UserArticle nextCustomArticle(Long userId) {
+        // 定制模式：检查用户是否解锁
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("USER_NOT_FOUND"));
+
+        if (!Boolean.TRUE.equals(user.getArticlesUnlocked())) {
+            throw new RuntimeException("ARTICLES_NOT_UNLOCKED");
         }
+
+        // 从队列取最早的一篇 READY 文章
+        return userArticleRepository
+                .findFirstByUserIdAndStatusOrderByCreatedAtAsc(userId, "READY")
+                .orElseGet(() -> {
+                    // 队列为空，用户正在等待：走交互通道立即生成一篇（同一用户的并发请求共享这一次生成），其余交给后台补充
+                    UserArticle generated = generateAndStoreCustomArticle(userId, QwenGovernor.Lane.INTERACTIVE);
+                    requestRefill(userId);
+                    return generated;
+                });
     }
 
     @Override
@@ -158,68 +235,99 @@ public class ArticleServiceImpl implements ArticleService {
         article.setCompletedAt(LocalDateTime.now());
         userArticleRepository.save(article);
 
-        // 检查队列长度，如果少于2篇则补充
-        long readyCount = userArticleRepository.countByUserIdAndStatus(userId, "READY");
-        if (readyCount < 2) {
-            generateAndStoreCustomArticle(userId);
-        }
+        // 事务提交后由后台补充队列，不在请求线程里等待生成
+        requestRefill(userId);
+    }
+
+    @Override
+    public void requestRefill(Long userId) {
+        TransactionCallbacks.afterCommit(
+                () -> articlePrefillWorker.submit(userId, () -> refillReadyQueue(userId)));
     }
 
     @Override
     public void generateBatchForUser(Long userId, int count) {
         for (int i = 0; i < count; i++) {
             try {
-                generateAndStoreCustomArticle(userId);
+                generateAndStoreCustomArticle(userId, QwenGovernor.Lane.BACKGROUND);
             } catch (Exception e) {
                 System.err.println("生成第" + (i + 1) + "篇文章失败: " + e.getMessage());
             }
         }
     }
 
+    /**
+     * 补充 READY 队列到目标数量（在后台线程执行）
+     */
+    private void refillReadyQueue(Long userId) {
+        // 每轮重新计数：合并到的生成可能是请求线程发起、已经被用户拿去读的那一篇，不能按本轮生成数累加
+        // 最多尝试 2 倍目标数，避免生成出的文章一直被取走时无限循环
+        for (int attempt = 0; attempt < targetReadyCount * 2; attempt++) {
+            if (userArticleRepository.countByUserIdAndStatus(userId, "READY") >= targetReadyCount) {
+                return;
+            }
+            generateAndStoreCustomArticle(userId, QwenGovernor.Lane.BACKGROUND);
+        }
+    }
+
     /**
      * 生成并存储一篇定制文章
+     * 同一用户同时只会有一次生成在进行，并发调用者等待并拿到同一篇文章（沿用发起者的通道）
      */
-    private void generateAndStoreCustomArticle(Long userId) {
-        ArticleResponse response = generateArticle(userId, "intermediate");
+    private UserArticle generateAndStoreCustomArticle(Long userId, QwenGovernor.Lane lane) {
+        return customArticleGenerations.execute(userId, () -> doGenerateAndStoreCustomArticle(userId, lane));
+    }
+
+    private UserArticle doGenerateAndStoreCustomArticle(Long userId, QwenGovernor.Lane lane) {
+        ArticleResponse response = generateArticle(userId, "intermediate", lane);
+        // 单词行按 (文章, 单词) 唯一，拼写相同的单词只保留一个；预编码内容与单词行保持一致
+        response.setWordBank(distinctWords(response.getWordBank()));
 
         UserArticle article = new UserArticle();
         article.setUserId(userId);
         article.setTitle(response.getTitle());
         article.setContent(response.getContent());
         article.setStatus("READY");
-
-        try {
-            article.setWordBankJson(objectMapper.writeValueAsString(response.getWordBank()));
-        } catch (Exception e) {
-            throw new RuntimeException("序列化单词库失败", e);
-        }
-
-        userArticleRepository.save(article);
+        article.setResponseJson(encodeResponseJson(response));
+
+        // 文章和单词库在同一事务中写入，单词库按行存储
+        return transactionTemplate.execute(status -> {
+            UserArticle saved = userArticleRepository.save(article);
+            userArticleWordRepository.saveAll(toArticleWords(saved, response.getWordBank()));
+            return saved;
+        });
     }
 
     /**
-     * 将 ArticleTemplate 转换为 ArticleResponse
+     * 去掉拼写相同（不区分大小写）的重复单词，保留第一次出现的
      */
-    private ArticleResponse convertTemplateToResponse(ArticleTemplate template) {
-        ArticleResponse response = new ArticleResponse();
-        response.setTitle(template.getTitle());
-        response.setContent(template.getContent());
-
-        try {
-            if (template.getWordBankJson() != null && !template.getWordBankJson().isEmpty()) {
-                List<ArticleResponse.WordItem> wordBank = objectMapper.readValue(
-                        template.getWordBankJson(),
-                        new TypeReference<List<ArticleResponse.WordItem>>() {}
-                );
-                response.setWordBank(wordBank);
-            } else {
-                response.setWordBank(new ArrayList<>());
+    private List<ArticleResponse.WordItem> distinctWords(List<ArticleResponse.WordItem> wordBank) {
+        Set<String> seen = new HashSet<>();
+        List<ArticleResponse.WordItem> distinct = new ArrayList<>(wordBank.size());
+        for (ArticleResponse.WordItem item : wordBank) {
+            if (item.getWord() != null && seen.add(item.getWord().toLowerCase())) {
+                distinct.add(item);
             }
-        } catch (Exception e) {
-            response.setWordBank(new ArrayList<>());
         }
+        return distinct;
+    }
 
-        return response;
+    private List<UserArticleWord> toArticleWords(UserArticle article, List<ArticleResponse.WordItem> wordBank) {
+        List<UserArticleWord> rows = new ArrayList<>(wordBank.size());
+        for (int i = 0; i < wordBank.size(); i++) {
+            ArticleResponse.WordItem item = wordBank.get(i);
+            UserArticleWord row = new UserArticleWord();
+            row.setArticleId(article.getId());
+            row.setUserId(article.getUserId());
+            row.setWordId(item.getId());
+            row.setWord(item.getWord());
+            row.setMeaning(item.getMeaning());
+            row.setMasteryScore(item.getMasteryScore());
+            row.setState(item.getState() != null ? item.getState() : "unused");
+            row.setPosition(i);
+            rows.add(row);
+        }
+        return rows;
     }
 
     /**
@@ -231,69 +339,228 @@ public class ArticleServiceImpl implements ArticleService {
         response.setContent(article.getContent());
         response.setArticleId(article.getId()); // 添加文章ID供前端使用
 
+        List<UserArticleWord> rows = userArticleWordRepository.findByArticleIdOrderByPositionAsc(article.getId());
+        if (!rows.isEmpty()) {
+            List<ArticleResponse.WordItem> wordBank = new ArrayList<>(rows.size());
+            for (UserArticleWord row : rows) {
+                ArticleResponse.WordItem item = new ArticleResponse.WordItem(
+                        row.getWordId(), row.getWord(), row.getMeaning(), row.getMasteryScore());
+                item.setState(row.getState());
+                wordBank.add(item);
+            }
+            response.setWordBank(wordBank);
+        } else {
+            // 旧文章：单词库仍在 word_bank_json 中
+            response.setWordBank(parseLegacyWordBank(article));
+        }
+
+        return response;
+    }
+
+    /**
+     * 编码文章响应（不含 articleId），每个单词的 state 写成占位符，取用时按单词行依次替换
+     */
+    String encodeResponseJson(ArticleResponse response) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("title", response.getTitle());
+        node.put("content", response.getContent());
+        ArrayNode wordBank = node.putArray("wordBank");
+        for (ArticleResponse.WordItem item : response.getWordBank()) {
+            ObjectNode word = objectMapper.valueToTree(item);
+            word.putRawValue("state", new RawValue(STATE_PLACEHOLDER));
+            wordBank.add(word);
+        }
+        try {
+            return objectMapper.writeValueAsString(node);
+        } catch (Exception e) {
+            // 编码失败时不保存，读取时走对象构建
+            return null;
+        }
+    }
+
+    /**
+     * 在预编码的 JSON 前加上 articleId，并按单词库顺序填入当前答题状态
+     * 占位符数量与单词行数不一致时返回 null
+     */
+    String fillResponseJson(UserArticle article) {
+        String encoded = article.getResponseJson();
+        List<String> states = userArticleWordRepository.findStatesByArticleId(article.getId());
+
+        StringBuilder json = new StringBuilder(encoded.length() + 32 + states.size() * 8);
+        json.append("{\"articleId\":").append(article.getId()).append(',');
+        int from = 1; // 跳过开头的 '{'
+        for (String state : states) {
+            int at = encoded.indexOf(ENCODED_STATE_PLACEHOLDER, from);
+            if (at < 0) {
+                return null;
+            }
+            json.append(encoded, from, at).append(STATE_FIELD).append(encodeState(state));
+            from = at + ENCODED_STATE_PLACEHOLDER.length();
+        }
+        if (encoded.indexOf(ENCODED_STATE_PLACEHOLDER, from) >= 0) {
+            return null;
+        }
+        json.append(encoded, from, encoded.length());
+        return json.toString();
+    }
+
+    private String encodeState(String state) {
+        switch (state == null ? "unused" : state) {
+            case "unused":
+                return "\"unused\"";
+            case "correct":
+                return "\"correct\"";
+            case "wrong":
+                return "\"wrong\"";
+            default:
+                try {
+                    return objectMapper.writeValueAsString(state);
+                } catch (Exception e) {
+                    return "\"unused\"";
+                }
+        }
+    }
+
+    private List<ArticleResponse.WordItem> parseLegacyWordBank(UserArticle article) {
         try {
             if (article.getWordBankJson() != null && !article.getWordBankJson().isEmpty()) {
-                List<ArticleResponse.WordItem> wordBank = objectMapper.readValue(
+                return objectMapper.readValue(
                         article.getWordBankJson(),
                         new TypeReference<List<ArticleResponse.WordItem>>() {}
                 );
-                response.setWordBank(wordBank);
-            } else {
-                response.setWordBank(new ArrayList<>());
             }
         } catch (Exception e) {
-            response.setWordBank(new ArrayList<>());
+            // 解析失败按空单词库处理
         }
-
-        return response;
+        return new ArrayList<>();
     }
 
     @Override
     @Transactional
     public void updateWordProgress(Long userId, Long articleId, String word, String state) {
-        // 1. 查找文章
-        UserArticle article = userArticleRepository.findById(articleId)
-                .orElseThrow(() -> new RuntimeException("ARTICLE_NOT_FOUND"));
+        try {
+            // 1. 按 (文章, 用户, 单词) 直接定位单词行；找不到时再检查文章本身
+            UserArticleWord row = userArticleWordRepository
+                    .findByArticleIdAndUserIdAndWord(articleId, userId, word)
+                    .orElseGet(() -> migrateLegacyWordBank(userId, articleId, word));
 
-        if (!article.getUserId().equals(userId)) {
-            throw new RuntimeException("UNAUTHORIZED");
+            // 2. 只更新这一行的状态
+            userArticleWordRepository.updateState(row.getId(), state);
+
+            // 3. 更新单词掌握度（如果有 wordId）
+            if (row.getWordId() != null) {
+                updateMasteryScore(userId, row.getWordId(), state);
+            }
+
+        } catch (Exception e) {
+            throw new RuntimeException("更新单词进度失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void updateWordProgressBatch(Long userId, Long articleId, List<WordProgressBatchRequest.Item> items) {
+        if (items == null || items.isEmpty()) {
+            return;
         }
 
         try {
-            // 2. 解析 wordBankJson
-            List<ArticleResponse.WordItem> wordBank = objectMapper.readValue(
-                    article.getWordBankJson(),
-                    new TypeReference<List<ArticleResponse.WordItem>>() {}
-            );
-
-            // 3. 找到对应单词并更新状态
-            boolean wordFound = false;
-            for (ArticleResponse.WordItem item : wordBank) {
-                if (item.getWord().equalsIgnoreCase(word)) {
-                    item.setState(state);
-                    wordFound = true;
-
-                    // 4. 更新单词掌握度（如果有 wordId）
-                    if (item.getId() != null) {
-                        updateMasteryScore(userId, item.getId(), state);
-                    }
-                    break;
-                }
+            // 1. 一次取出文章的全部单词行
+            List<UserArticleWord> rows = userArticleWordRepository
+                    .findByArticleIdAndUserIdOrderByPositionAsc(articleId, userId);
+            if (rows.isEmpty()) {
+                rows = migrateLegacyWordBank(userId, articleId);
+            }
+            Map<String, UserArticleWord> rowByWord = new HashMap<>();
+            for (UserArticleWord row : rows) {
+                rowByWord.put(row.getWord().toLowerCase(), row);
             }
 
-            if (!wordFound) {
-                throw new RuntimeException("WORD_NOT_FOUND_IN_ARTICLE");
+            // 2. 按顺序应用：单词行只保留最终状态，掌握度每次答题都计入
+            Map<Long, String> finalStates = new LinkedHashMap<>();
+            List<WordProgressBatchRequest.Item> masteryEvents = new ArrayList<>();
+            Map<String, Long> wordIdByWord = new HashMap<>();
+            for (WordProgressBatchRequest.Item item : items) {
+                UserArticleWord row = rowByWord.get(item.getWord().toLowerCase());
+                if (row == null) {
+                    throw new RuntimeException("WORD_NOT_FOUND_IN_ARTICLE");
+                }
+                finalStates.put(row.getId(), item.getState());
+                if (row.getWordId() != null) {
+                    masteryEvents.add(item);
+                    wordIdByWord.put(item.getWord().toLowerCase(), row.getWordId());
+                }
             }
 
-            // 5. 序列化回 JSON 并保存
-            article.setWordBankJson(objectMapper.writeValueAsString(wordBank));
-            userArticleRepository.save(article);
+            // 3. 相同状态的单词行合并为一条 UPDATE
+            Map<String, List<Long>> rowIdsByState = finalStates.entrySet().stream()
+                    .collect(Collectors.groupingBy(Map.Entry::getValue,
+                            Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+            rowIdsByState.forEach((state, ids) -> userArticleWordRepository.updateStates(ids, state));
+
+            // 4. 一次查询涉及的掌握度记录，批量保存
+            if (!masteryEvents.isEmpty()) {
+                Map<Long, UserWordMastery> masteryByWordId = userWordMasteryRepository
+                        .findByUserIdAndWordIdIn(userId, new HashSet<>(wordIdByWord.values())).stream()
+                        .collect(Collectors.toMap(UserWordMastery::getWordId, m -> m));
+                Map<Long, Integer> initialScores = new HashMap<>();
+                masteryByWordId.forEach((wordId, mastery) -> initialScores.put(wordId, mastery.getMasteryScore()));
+                for (WordProgressBatchRequest.Item item : masteryEvents) {
+                    UserWordMastery mastery = masteryByWordId.get(wordIdByWord.get(item.getWord().toLowerCase()));
+                    if (mastery != null) {
+                        applyMasteryChange(mastery, item.getState());
+                    }
+                }
+                userWordMasteryRepository.saveAll(masteryByWordId.values());
+                MasteryStatsTracker.Delta delta = new MasteryStatsTracker.Delta();
+                masteryByWordId.forEach((wordId, mastery) -> delta.add(initialScores.get(wordId), mastery.getMasteryScore()));
+                masteryStatsTracker.apply(userId, delta);
+                if (!masteryByWordId.isEmpty()) {
+                    eventPublisher.publishEvent(new MasteryChangedEvent(userId, 0));
+                }
+            }
 
         } catch (Exception e) {
             throw new RuntimeException("更新单词进度失败: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 单词行不存在时：校验文章归属；如果是旧文章则把 word_bank_json 拆成单词行（只迁移一次）
+     * @return 与 word 对应的单词行
+     */
+    private UserArticleWord migrateLegacyWordBank(Long userId, Long articleId, String word) {
+        return migrateLegacyWordBank(userId, articleId).stream()
+                .filter(row -> row.getWord().equalsIgnoreCase(word))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("WORD_NOT_FOUND_IN_ARTICLE"));
+    }
+
+    /**
+     * 迁移前先用条件 UPDATE 清空 word_bank_json 认领文章，只有认领成功的事务写入单词行；
+     * 没认领到说明另一个请求正在或已经迁移，等它提交后用加锁读取拿到它写入的行
+     * @return 文章的全部单词行
+     */
+    private List<UserArticleWord> migrateLegacyWordBank(Long userId, Long articleId) {
+        UserArticle article = userArticleRepository.findById(articleId)
+                .orElseThrow(() -> new RuntimeException("ARTICLE_NOT_FOUND"));
+
+        if (!article.getUserId().equals(userId)) {
+            throw new RuntimeException("UNAUTHORIZED");
+        }
+
+        List<UserArticleWord> rows = userArticleWordRepository.findByArticleIdOrderByPositionAsc(articleId);
+        if (rows.isEmpty()) {
+            List<ArticleResponse.WordItem> legacyWordBank = distinctWords(parseLegacyWordBank(article));
+            if (userArticleRepository.claimLegacyWordBank(articleId) == 1) {
+                rows = userArticleWordRepository.saveAll(toArticleWords(article, legacyWordBank));
+            } else {
+                rows = userArticleWordRepository.findByArticleIdForShare(articleId);
+            }
+        }
+        return rows;
+    }
+
     /**
      * 更新用户单词掌握度
      */
@@ -303,15 +570,26 @@ public class ArticleServiceImpl implements ArticleService {
 
         if (masteryOpt.isPresent()) {
             UserWordMastery mastery = masteryOpt.get();
-            int currentScore = mastery.getMasteryScore();
-
-            if ("correct".equals(state)) {
-                mastery.setMasteryScore(Math.min(100, currentScore + 1));
-            } else if ("wrong".equals(state)) {
-                mastery.setMasteryScore(Math.max(0, (int)(currentScore - 0.5)));
-            }
-
+            int oldScore = mastery.getMasteryScore();
+            applyMasteryChange(mastery, state);
             userWordMasteryRepository.save(mastery);
+            masteryStatsTracker.apply(userId, new MasteryStatsTracker.Delta().add(oldScore, mastery.getMasteryScore()));
+            eventPublisher.publishEvent(new MasteryChangedEvent(userId, 0));
+        }
+    }
+
+    /**
+     * 按文章答题结果调整掌握度：答对 +1，答错 -0.5（取整，不低于 0），并重新计算下次复习时间
+     */
+    private void applyMasteryChange(UserWordMastery mastery, String state) {
+        int currentScore = mastery.getMasteryScore();
+
+        if ("correct".equals(state)) {
+            mastery.setMasteryScore(Math.min(100, currentScore + 1));
+            reviewScheduler.schedule(mastery, true, LocalDateTime.now());
+        } else if ("wrong".equals(state)) {
+            mastery.setMasteryScore(Math.max(0, (int)(currentScore - 0.5)));
+            reviewScheduler.schedule(mastery, false, LocalDateTime.now());
         }
     }
 }
@@ -3,12 +3,22 @@ package com.example.englishaiapp.service.impl;
 import com.example.englishaiapp.domain.User;
 import com.example.englishaiapp.domain.UserWordMastery;
 import com.example.englishaiapp.domain.Word;
+import com.example.englishaiapp.dto.LearningResult;
 import com.example.englishaiapp.repository.UserRepository;
 import com.example.englishaiapp.repository.UserWordMasteryRepository;
-import com.example.englishaiapp.repository.WordRepository;
 import com.example.englishaiapp.service.ArticleService;
+import com.example.englishaiapp.service.LeaderboardIndex;
 import com.example.englishaiapp.service.LearningService;
+import com.example.englishaiapp.service.LearningSessionCache;
+import com.example.englishaiapp.service.MasteryChangedEvent;
+import com.example.englishaiapp.service.MasteryStatsTracker;
+import com.example.englishaiapp.service.ReviewScheduler;
+import com.example.englishaiapp.service.WordDictionary;
+import com.example.englishaiapp.util.RecentWordRing;
+import com.example.englishaiapp.util.TransactionCallbacks;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,7 +28,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class LearningServiceImpl implements LearningService {
@@ -27,7 +44,7 @@ public class LearningServiceImpl implements LearningService {
     private UserRepository userRepository;
 
     @Autowired
-    private WordRepository wordRepository;
+    private WordDictionary wordDictionary;
 
     @Autowired
     private UserWordMasteryRepository userWordMasteryRepository;
@@ -35,75 +52,240 @@ public class LearningServiceImpl implements LearningService {
     @Autowired
     private ArticleService articleService;
 
+    @Autowired
+    private ReviewScheduler reviewScheduler;
+
+    @Autowired
+    private LearningSessionCache learningSessionCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MasteryStatsTracker masteryStatsTracker;
+
+    @Autowired
+    private LeaderboardIndex leaderboardIndex;
+
+    // 挑选新词时每次范围扫描的单词数
+    @Value("${learning.new-words.scan-window:200}")
+    private int newWordScanWindow;
+
+    // 最近学习的单词数量（这些单词不会出现在下一次的学习任务中）
+    @Value("${learning.recent-words.capacity:5}")
+    private int recentWordsCapacity;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
     @Transactional
     public List<Word> getLearningSession(Long userId, int limit) {
+        // 优先使用后台预取的任务，没有时现场组装
+        LearningSessionCache.PreparedSession session = learningSessionCache.take(userId, limit)
+                .orElseGet(() -> prepareLearningSession(userId, limit));
+        learningSessionCache.served(userId, session.words().size());
+
+        // 一条 UPDATE 更新所有复习单词的 lastSeenAt
+        if (!session.reviewMasteryIds().isEmpty()) {
+            userWordMasteryRepository.updateLastSeenAt(session.reviewMasteryIds(), LocalDateTime.now());
+        }
+        return session.words();
+    }
+
+    @Override
+    @Transactional
+    public LearningSessionCache.PreparedSession prepareLearningSession(Long userId, int limit) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // 解析最近5个单词的ID
-        List<Long> recentWordIds = parseRecentWordIds(user.getRecentWordIds());
+        // 最近学习的单词
+        RecentWordRing recentWords = loadRecentWords(user);
         // 如果为空，传递一个包含-1的列表（不会匹配任何单词）
-        if (recentWordIds.isEmpty()) {
-            recentWordIds = List.of(-1L);
-        }
+        List<Long> recentWordIds = recentWords.isEmpty() ? List.of(-1L) : recentWords.toList();
 
-        // 1. 查询需要复习的单词（分数 < 6，且不在最近5个中）
+        // 1. 查询到期需要复习的单词（不在最近学习的单词中）
         List<UserWordMastery> reviewList = userWordMasteryRepository
-                .findReviewWords(userId, recentWordIds, PageRequest.of(0, limit));
+                .findDueWords(userId, LocalDateTime.now(), recentWordIds, PageRequest.of(0, limit));
 
+        // 从内存词典取复习单词，按复习顺序组装
         List<Word> result = new ArrayList<>();
+        List<Long> reviewMasteryIds = new ArrayList<>();
         for (UserWordMastery mastery : reviewList) {
-            Word word = wordRepository.findById(mastery.getWordId()).orElse(null);
+            Word word = wordDictionary.get(mastery.getWordId()).orElse(null);
             if (word != null) {
                 result.add(word);
-                // 更新 lastSeenAt
-                mastery.setLastSeenAt(LocalDateTime.now());
-                userWordMasteryRepository.save(mastery);
+                reviewMasteryIds.add(mastery.getId());
             }
         }
 
-        // 2. 如果不够，补充新词
+        // 2. 如果不够，从学习指针之后补充新词
         int newWordsNeeded = limit - result.size();
         if (newWordsNeeded > 0) {
-            // 重新解析 recentWordIds（因为可能被修改为包含-1的列表）
-            List<Long> recentIdsForNewWords = parseRecentWordIds(user.getRecentWordIds());
-            if (recentIdsForNewWords.isEmpty()) {
-                recentIdsForNewWords = List.of(-1L);
-            }
-            List<Word> newWords = wordRepository.findNewWordsForUser(
-                    userId, recentIdsForNewWords, PageRequest.of(0, newWordsNeeded)
-            );
-            result.addAll(newWords);
+            result.addAll(pickNewWords(user, recentWords, newWordsNeeded));
         }
 
-        return result;
+        return new LearningSessionCache.PreparedSession(result, reviewMasteryIds);
     }
 
     @Override
     @Transactional
     public UserWordMastery submitLearningResult(Long userId, Long wordId, boolean isCorrect) {
+        // 用户只加载一次，所有改动在内存中完成，事务提交时只写一次
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
         // 1. 查找或创建记录
         UserWordMastery mastery = userWordMasteryRepository
                 .findByUserIdAndWordId(userId, wordId)
                 .orElse(new UserWordMastery(userId, wordId, 0));
 
-        // 记录是否是首次学习
+        // 2. 更新打分逻辑和时间
+        Integer oldScore = mastery.getId() == null ? null : mastery.getMasteryScore();
+        boolean firstLearned = applyAnswer(mastery, isCorrect, LocalDateTime.now());
+
+        // 3. 保存，并记录掌握度分布的变化
+        // （统计是原生 UPDATE，执行前会 flush 会话，所以放在修改用户之前，避免用户被提前写一次）
+        userWordMasteryRepository.save(mastery);
+        masteryStatsTracker.apply(userId, new MasteryStatsTracker.Delta().add(oldScore, mastery.getMasteryScore()));
+
+        // 4. 首次学习时累计用户的 totalWordsLearned，并更新用户最近学习的单词
+        if (firstLearned) {
+            user.setTotalWordsLearned(user.getTotalWordsLearned() + 1);
+        }
+        RecentWordRing recentWords = loadRecentWords(user);
+        recentWords.push(wordId);
+        storeRecentWords(user, recentWords);
+
+        // 5. 检查是否达到解锁条件（16个单词）
+        unlockArticlesIfEligible(user);
+
+        userRepository.save(user);
+        if (firstLearned) {
+            TransactionCallbacks.afterCommit(() -> leaderboardIndex.update(user));
+        }
+        eventPublisher.publishEvent(new MasteryChangedEvent(userId, 1));
+        return mastery;
+    }
+
+    @Override
+    @Transactional
+    public void applyLearningResults(Long userId, List<LearningResult> results) {
+        if (results == null || results.isEmpty()) {
+            return;
+        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        // 1. 一次取出涉及的所有掌握度记录
+        List<LearningResult> ordered = new ArrayList<>(results);
+        ordered.sort(Comparator.comparing(LearningResult::getAnsweredAt));
+        Set<Long> wordIds = ordered.stream().map(LearningResult::getWordId).collect(Collectors.toSet());
+        Map<Long, UserWordMastery> masteryByWord = new HashMap<>();
+        Map<Long, Integer> initialScores = new HashMap<>();
+        for (UserWordMastery mastery : userWordMasteryRepository.findByUserIdAndWordIdIn(userId, wordIds)) {
+            masteryByWord.put(mastery.getWordId(), mastery);
+            initialScores.put(mastery.getWordId(), mastery.getMasteryScore());
+        }
+
+        // 2. 按答题顺序在内存中应用
+        RecentWordRing recentWords = loadRecentWords(user);
+        Map<Long, UserWordMastery> changed = new LinkedHashMap<>();
+        int newlyLearned = 0;
+        for (LearningResult result : ordered) {
+            UserWordMastery mastery = masteryByWord.computeIfAbsent(result.getWordId(),
+                    wordId -> new UserWordMastery(userId, wordId, 0));
+            // 已应用过的结果（重放日志时会出现）
+            if (mastery.getLastLearnedAt() != null && !result.getAnsweredAt().isAfter(mastery.getLastLearnedAt())) {
+                continue;
+            }
+            if (applyAnswer(mastery, result.isCorrect(), result.getAnsweredAt())) {
+                newlyLearned++;
+            }
+            changed.put(result.getWordId(), mastery);
+            recentWords.push(result.getWordId());
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        // 3. 掌握度批量写入（分布按每个单词的最初/最终分数合并成一次增量），用户只保存一次
+        userWordMasteryRepository.saveAll(changed.values());
+        MasteryStatsTracker.Delta delta = new MasteryStatsTracker.Delta();
+        changed.forEach((wordId, mastery) -> delta.add(initialScores.get(wordId), mastery.getMasteryScore()));
+        masteryStatsTracker.apply(userId, delta);
+        user.setTotalWordsLearned(user.getTotalWordsLearned() + newlyLearned);
+        storeRecentWords(user, recentWords);
+        unlockArticlesIfEligible(user);
+        userRepository.save(user);
+        if (newlyLearned > 0) {
+            TransactionCallbacks.afterCommit(() -> leaderboardIndex.update(user));
+        }
+        eventPublisher.publishEvent(new MasteryChangedEvent(userId, ordered.size()));
+    }
+
+    @Override
+    public int getStrangeWordCount(Long userId) {
+        return masteryStatsTracker.get(userId).getStrangeWords();
+    }
+
+    /**
+     * 从学习指针 learningIndex 之后按ID顺序挑选新词
+     * 指针含义：ID 不大于它的单词都已学过。从指针处按窗口做主键范围扫描，
+     * 跳过已学过的单词（通过文章等途径提前学过的），并把指针推进到连续已学过的最后一个单词
+     */
+    private List<Word> pickNewWords(User user, RecentWordRing recentWords, int needed) {
+        long cursor = user.getLearningIndex() != null ? user.getLearningIndex() : 0L;
+        long advancedCursor = cursor;
+        boolean contiguous = true;
+
+        List<Word> picked = new ArrayList<>();
+        long scanFrom = cursor;
+        int window = Math.max(needed * 2, newWordScanWindow);
+        while (picked.size() < needed) {
+            List<Word> candidates = wordDictionary.after(scanFrom, window);
+            if (candidates.isEmpty()) {
+                break;
+            }
+
+            Set<Long> learned = new HashSet<>(userWordMasteryRepository.findLearnedWordIds(
+                    user.getId(), candidates.stream().map(Word::getId).toList()));
+            for (Word word : candidates) {
+                if (learned.contains(word.getId())) {
+                    if (contiguous) {
+                        advancedCursor = word.getId();
+                    }
+                    continue;
+                }
+                contiguous = false;
+                if (picked.size() < needed && !recentWords.contains(word.getId())) {
+                    picked.add(word);
+                }
+            }
+
+            scanFrom = candidates.get(candidates.size() - 1).getId();
+            if (candidates.size() < window) {
+                break;
+            }
+        }
+
+        // 指针只前进不后退；只更新这一列，避免覆盖并发提交对用户的修改
+        if (advancedCursor > cursor) {
+            userRepository.advanceLearningIndex(user.getId(), advancedCursor);
+        }
+        return picked;
+    }
+
+    /**
+     * 按一次答题更新掌握度分数、最后学习时间和下次复习时间
+     * @return 是否是首次学习该单词
+     */
+    private boolean applyAnswer(UserWordMastery mastery, boolean isCorrect, LocalDateTime answeredAt) {
         boolean isFirstTime = (mastery.getLastLearnedAt() == null);
 
-        // 2. 更新打分逻辑
         if (isFirstTime) {
             // 首次学习
             // 答对直接毕业（分数>=6），避免短期内重复
             mastery.setMasteryScore(isCorrect ? 6 : 0);
-            
-            // 更新用户的 totalWordsLearned
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            user.setTotalWordsLearned(user.getTotalWordsLearned() + 1);
-            userRepository.save(user);
         } else {
             // 再次学习
             if (isCorrect) {
@@ -114,29 +296,35 @@ public class LearningServiceImpl implements LearningService {
             }
         }
 
-        // 3. 更新时间
-        mastery.setLastLearnedAt(LocalDateTime.now());
-
-        // 4. 保存
-        userWordMasteryRepository.save(mastery);
-
-        // 5. 更新用户的 recentWordIds 队列
-        updateRecentWords(userId, wordId);
-
-        // 6. 检查是否达到解锁条件（16个单词）
-        checkAndUnlockArticles(userId);
+        mastery.setLastLearnedAt(answeredAt);
+        reviewScheduler.schedule(mastery, isCorrect, answeredAt);
+        return isFirstTime;
+    }
 
-        return mastery;
+    /**
+     * 读取用户最近学习的单词；还没有二进制队列的老用户从 recentWordIds（JSON）转换
+     */
+    private RecentWordRing loadRecentWords(User user) {
+        if (user.getRecentWordRing() != null) {
+            return RecentWordRing.decode(user.getRecentWordRing(), recentWordsCapacity);
+        }
+        RecentWordRing recentWords = new RecentWordRing(recentWordsCapacity);
+        for (Long wordId : parseRecentWordIds(user.getRecentWordIds())) {
+            recentWords.push(wordId);
+        }
+        return recentWords;
     }
 
-    @Override
-    public int getStrangeWordCount(Long userId) {
-        return (int) userWordMasteryRepository
-                .countByUserIdAndMasteryScoreLessThan(userId, 6);
+    /**
+     * 写回最近学习的单词（由调用方保存 user），旧的 JSON 列随之清空
+     */
+    private void storeRecentWords(User user, RecentWordRing recentWords) {
+        user.setRecentWordRing(recentWords.encode());
+        user.setRecentWordIds(null);
     }
 
     /**
-     * 解析 recentWordIds 字符串为 List<Long>
+     * 解析旧的 recentWordIds 字符串为 List<Long>
      */
     private List<Long> parseRecentWordIds(String recentWordIdsJson) {
         if (recentWordIdsJson == null || recentWordIdsJson.isEmpty() || recentWordIdsJson.equals("[]")) {
@@ -151,57 +339,24 @@ public class LearningServiceImpl implements LearningService {
     }
 
     /**
-     * 更新用户的 recentWordIds（严格的FIFO队列，无重复，最多5个）
+     * 达到解锁条件时在 user 上标记解锁，并安排后台生成首批文章（由调用方保存 user）
+     * @return 本次是否解锁
      */
-    private void updateRecentWords(Long userId, Long wordId) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found while updating recent words"));
-        List<Long> recentIds = new ArrayList<>(parseRecentWordIds(user.getRecentWordIds()));
-
-        // 1. 如果单词已存在，先移除，确保它会被移到队尾
-        recentIds.remove(wordId);
-
-        // 2. 将当前单词添加到队尾
-        recentIds.add(wordId);
-
-        // 3. 如果队列超长，从队首移除多余的元素，确保队列大小不超过5
-        while (recentIds.size() > 5) {
-            recentIds.remove(0); // 移除队首元素
-        }
-
-        // 4. 保存回数据库
-        try {
-            user.setRecentWordIds(objectMapper.writeValueAsString(recentIds));
-            userRepository.save(user);
-        } catch (Exception e) {
-            // 在真实应用中，这里应该使用日志框架记录错误
-            System.err.println("序列化或保存 recentWordIds 失败: " + e.getMessage());
-        }
-    }
-
-    /**
-     * 检查并解锁定制文章（学习满16个单词后）
-     */
-    private void checkAndUnlockArticles(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
+    private boolean unlockArticlesIfEligible(User user) {
         // 如果已经解锁，直接返回
         if (Boolean.TRUE.equals(user.getArticlesUnlocked())) {
-            return;
+            return false;
         }
 
         // 检查是否达到解锁条件
         if (user.getTotalWordsLearned() >= 16) {
             user.setArticlesUnlocked(true);
-            userRepository.save(user);
-
-            // 立即生成2篇定制文章
-            try {
-                articleService.generateBatchForUser(userId, 2);
-                System.out.println("用户 " + userId + " 已解锁定制文章，生成2篇文章");
-            } catch (Exception e) {
-                System.err.println("生成解锁文章失败: " + e.getMessage());
-            }
+
+            // 交给后台生成首批定制文章，不阻塞提交请求
+            articleService.requestRefill(user.getId());
+            System.out.println("用户 " + user.getId() + " 已解锁定制文章，后台生成首批文章");
+            return true;
         }
+        return false;
     }
 }
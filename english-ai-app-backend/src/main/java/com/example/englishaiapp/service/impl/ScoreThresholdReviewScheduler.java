@@ -0,0 +1,29 @@
+package com.example.englishaiapp.service.impl;
+
+import com.example.englishaiapp.domain.UserWordMastery;
+import com.example.englishaiapp.service.ReviewScheduler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 按掌握度阈值调度（原复习逻辑）
+ * 分数 < 6 的单词立即到期，按最后学习时间排队；分数 >= 6 视为已掌握，不再安排复习
+ */
+@Component
+@ConditionalOnProperty(name = "learning.scheduler", havingValue = "score")
+public class ScoreThresholdReviewScheduler implements ReviewScheduler {
+
+    private static final int MASTERED_SCORE = 6;
+
+    @Override
+    public boolean schedulesMasteredWords() {
+        return false;
+    }
+
+    @Override
+    public void schedule(UserWordMastery mastery, boolean correct, LocalDateTime answeredAt) {
+        mastery.setNextDueAt(mastery.getMasteryScore() < MASTERED_SCORE ? answeredAt : null);
+    }
+}
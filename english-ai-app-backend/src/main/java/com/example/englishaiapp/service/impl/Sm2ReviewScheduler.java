@@ -0,0 +1,64 @@
+package com.example.englishaiapp.service.impl;
+
+import com.example.englishaiapp.domain.UserWordMastery;
+import com.example.englishaiapp.service.ReviewScheduler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * SM-2 间隔重复调度
+ * - 答对：第 1 次间隔 1 天，第 2 次 6 天，之后为上次间隔 × 难度系数
+ * - 答错：连续答对次数清零，relearn-delay 之后再次复习
+ * 只有对/错两种结果，按 SM-2 的评分映射为 4 分和 1 分
+ */
+@Component
+@ConditionalOnProperty(name = "learning.scheduler", havingValue = "sm2", matchIfMissing = true)
+public class Sm2ReviewScheduler implements ReviewScheduler {
+
+    private static final int QUALITY_CORRECT = 4;
+    private static final int QUALITY_WRONG = 1;
+    private static final double MIN_EASE_FACTOR = 1.3;
+
+    @Value("${learning.scheduler.sm2.relearn-delay:10m}")
+    private Duration relearnDelay;
+
+    @Override
+    public boolean schedulesMasteredWords() {
+        return true;
+    }
+
+    @Override
+    public void schedule(UserWordMastery mastery, boolean correct, LocalDateTime answeredAt) {
+        int quality = correct ? QUALITY_CORRECT : QUALITY_WRONG;
+        double easeFactor = mastery.getEaseFactor() != null ? mastery.getEaseFactor() : 2.5;
+        int repetitions = mastery.getRepetitions() != null ? mastery.getRepetitions() : 0;
+        int interval = mastery.getIntervalDays() != null ? mastery.getIntervalDays() : 0;
+
+        easeFactor = Math.max(MIN_EASE_FACTOR,
+                easeFactor + 0.1 - (5 - quality) * (0.08 + (5 - quality) * 0.02));
+
+        if (correct) {
+            repetitions++;
+            if (repetitions == 1) {
+                interval = 1;
+            } else if (repetitions == 2) {
+                interval = 6;
+            } else {
+                interval = (int) Math.round(interval * easeFactor);
+            }
+            mastery.setNextDueAt(answeredAt.plusDays(interval));
+        } else {
+            repetitions = 0;
+            interval = 0;
+            mastery.setNextDueAt(answeredAt.plus(relearnDelay));
+        }
+
+        mastery.setEaseFactor(easeFactor);
+        mastery.setRepetitions(repetitions);
+        mastery.setIntervalDays(interval);
+    }
+}
@@ -2,7 +2,9 @@ package com.example.englishaiapp.service.impl;
 
 import com.example.englishaiapp.domain.User;
 import com.example.englishaiapp.repository.UserRepository;
+import com.example.englishaiapp.service.LeaderboardIndex;
 import com.example.englishaiapp.service.UserService;
+import com.example.englishaiapp.util.TransactionCallbacks;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -18,6 +20,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private LeaderboardIndex leaderboardIndex;
+
     @Override
     public User register(User user) {
         if (userRepository.findByUsername(user.getUsername()).isPresent()) {
@@ -28,7 +33,9 @@ public class UserServiceImpl implements UserService {
         }
 
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        TransactionCallbacks.afterCommit(() -> leaderboardIndex.update(saved));
+        return saved;
     }
 
     @Override
@@ -2,7 +2,9 @@ package com.example.englishaiapp.service.impl;
 
 import com.example.englishaiapp.domain.User;
 import com.example.englishaiapp.repository.UserRepository;
+import com.example.englishaiapp.service.LeaderboardIndex;
 import com.example.englishaiapp.service.UserStatsService;
+import com.example.englishaiapp.util.TransactionCallbacks;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -10,7 +12,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Service
@@ -19,6 +20,9 @@ public class UserStatsServiceImpl implements UserStatsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private LeaderboardIndex leaderboardIndex;
+
     @Override
     @Transactional
     public Map<String, Object> checkIn(Long userId) {
@@ -66,6 +70,7 @@ public class UserStatsServiceImpl implements UserStatsService {
         user.setGems(user.getGems() + gemsReward);
         
         userRepository.save(user);
+        TransactionCallbacks.afterCommit(() -> leaderboardIndex.update(user));
 
         // 返回签到结果
         Map<String, Object> result = new HashMap<>();
@@ -106,22 +111,13 @@ public class UserStatsServiceImpl implements UserStatsService {
         User currentUser = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
 
-        // 计算用户经验值（可以根据多个维度计算）
-        int userExp = calculateExp(currentUser);
+        // 计算用户经验值（可以根据多个维度计算），顺便校正排行榜中该用户的经验
+        int userExp = LeaderboardIndex.calculateExp(currentUser);
+        leaderboardIndex.update(currentUser);
 
-        // 获取所有用户并计算排名
-        List<User> allUsers = userRepository.findAll();
-        
-        // 计算当前用户的排名
-        int rank = 1;
+        // 排名 = 经验更高的人数 + 1，由排行榜索引直接得出
+        int rank = leaderboardIndex.rank(userExp);
         int previousRank = 1; // 这里简化处理，实际应该从数据库或缓存中获取上次排名
-        
-        for (User user : allUsers) {
-            int exp = calculateExp(user);
-            if (exp > userExp) {
-                rank++;
-            }
-        }
 
         // 计算排名变化
         int rankChange = previousRank - rank;
@@ -130,23 +126,16 @@ public class UserStatsServiceImpl implements UserStatsService {
         leaderboard.put("rank", rank);
         leaderboard.put("rankChange", rankChange);
         leaderboard.put("exp", userExp);
-        leaderboard.put("totalUsers", allUsers.size());
+        leaderboard.put("totalUsers", leaderboardIndex.totalUsers());
 
         return leaderboard;
     }
 
-    /**
-     * 计算用户经验值
-     */
-    private int calculateExp(User user) {
-        // 经验值计算规则：
-        // - 每学习一个单词：10经验
-        // - 每掌握一个单词：20经验
-        // - 每签到一天：5经验
-        int exp = 0;
-        exp += user.getTotalWordsLearned() * 10;
-        exp += user.getWordsMastered() * 20;
-        exp += user.getTotalCheckinDays() * 5;
-        return exp;
+    @Override
+    public Map<String, Object> getLeaderboardTop(int limit) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("entries", leaderboardIndex.top(limit));
+        result.put("totalUsers", leaderboardIndex.totalUsers());
+        return result;
     }
 }
@@ -1,19 +1,18 @@
 package com.example.englishaiapp.service.impl;
 
-import com.example.englishaiapp.domain.UserWordMastery;
-import com.example.englishaiapp.domain.Word;
+import com.example.englishaiapp.domain.UserMasteryStats;
+import com.example.englishaiapp.dto.VocabularyItem;
 import com.example.englishaiapp.repository.UserWordMasteryRepository;
-import com.example.englishaiapp.repository.WordRepository;
+import com.example.englishaiapp.service.MasteryStatsTracker;
 import com.example.englishaiapp.service.VocabularyService;
+import com.example.englishaiapp.service.WordDictionary;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class VocabularyServiceImpl implements VocabularyService {
@@ -22,77 +21,109 @@ public class VocabularyServiceImpl implements VocabularyService {
     private UserWordMasteryRepository masteryRepository;
 
     @Autowired
-    private WordRepository wordRepository;
+    private WordDictionary wordDictionary;
+
+    @Autowired
+    private MasteryStatsTracker masteryStatsTracker;
+
+    // 每页最多返回的单词数
+    private static final int MAX_PAGE_SIZE = 200;
 
     @Override
     public Map<String, Object> getUserVocabulary(Long userId, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("masteryScore").ascending());
-        Page<UserWordMastery> masteryPage = masteryRepository.findByUserId(userId, pageable);
+        size = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<VocabularyItem> rows = masteryRepository.findVocabulary(userId, PageRequest.of(page, size));
 
-        List<Long> wordIds = masteryPage.getContent().stream()
-                .map(UserWordMastery::getWordId)
-                .collect(Collectors.toList());
+        // 总数取自增量维护的统计行，不再单独 COUNT
+        int totalWords = masteryStatsTracker.get(userId).getTotalWords();
 
-        Map<Long, Word> wordMap = new HashMap<>();
-        if (!wordIds.isEmpty()) {
-            List<Word> words = wordRepository.findAllById(wordIds);
-            wordMap = words.stream().collect(Collectors.toMap(Word::getId, w -> w));
+        Map<String, Object> result = new HashMap<>();
+        result.put("words", fillWords(rows));
+        result.put("currentPage", page);
+        result.put("totalPages", (totalWords + size - 1) / size);
+        result.put("totalWords", totalWords);
+        result.put("pageSize", size);
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getUserVocabularyAfter(Long userId, String cursor, int size) {
+        size = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // 多取一条判断是否还有下一页
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<VocabularyItem> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = masteryRepository.findVocabulary(userId, limit);
+        } else {
+            long[] position = decodeCursor(cursor);
+            rows = masteryRepository.findVocabularyAfter(userId, (int) position[0], position[1], limit);
         }
 
-        List<Map<String, Object>> vocabularyList = new ArrayList<>();
-        for (UserWordMastery mastery : masteryPage.getContent()) {
-            Word word = wordMap.get(mastery.getWordId());
-            if (word != null) {
-                Map<String, Object> item = new HashMap<>();
-                item.put("id", word.getId());
-                item.put("word", word.getWord());
-                item.put("translation", word.getMeaning());
-                item.put("phonetic", word.getPhonetic());
-                item.put("definition", word.getMeaning());
-                item.put("exampleSentence", word.getExampleSentence());
-                item.put("masteryScore", mastery.getMasteryScore());
-                item.put("correctCount", 0);
-                item.put("incorrectCount", 0);
-                item.put("lastLearnedAt", mastery.getLastLearnedAt());
-                item.put("masteryLevel", calculateMasteryLevel(mastery.getMasteryScore()));
-                vocabularyList.add(item);
-            }
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+        // 游标取自最后一条记录（即使它的单词不在词典中被跳过）
+        String nextCursor = null;
+        if (hasMore) {
+            VocabularyItem last = rows.get(rows.size() - 1);
+            nextCursor = encodeCursor(last.getMasteryScore(), last.getMasteryId());
         }
 
         Map<String, Object> result = new HashMap<>();
-        result.put("words", vocabularyList);
-        result.put("currentPage", masteryPage.getNumber());
-        result.put("totalPages", masteryPage.getTotalPages());
-        result.put("totalWords", masteryPage.getTotalElements());
-        result.put("pageSize", masteryPage.getSize());
+        result.put("words", fillWords(rows));
+        result.put("nextCursor", nextCursor);
+        result.put("totalWords", masteryStatsTracker.get(userId).getTotalWords());
+        result.put("pageSize", size);
         return result;
     }
 
+    /**
+     * 从词典补齐单词字段，词典中没有的单词跳过
+     */
+    private List<VocabularyItem> fillWords(List<VocabularyItem> rows) {
+        List<VocabularyItem> items = new ArrayList<>(rows.size());
+        for (VocabularyItem item : rows) {
+            wordDictionary.get(item.getId()).ifPresent(word -> {
+                item.fillWord(word);
+                item.setMasteryLevel(calculateMasteryLevel(item.getMasteryScore()));
+                items.add(item);
+            });
+        }
+        return items;
+    }
+
+    /**
+     * 游标是 "masteryScore:id" 的 Base64（URL 安全）编码，对客户端不透明
+     */
+    private String encodeCursor(int masteryScore, long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((masteryScore + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long[] decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            return new long[] {
+                    Integer.parseInt(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1))
+            };
+        } catch (RuntimeException e) {
+            throw new RuntimeException("INVALID_CURSOR");
+        }
+    }
+
     @Override
     public Map<String, Object> getVocabularyStats(Long userId) {
-        List<UserWordMastery> allMastery = masteryRepository.findByUserId(userId);
-
-        int totalWords = allMastery.size();
-        int masteredWords = 0;
-        int learningWords = 0;
-        int weakWords = 0;
-
-        for (UserWordMastery mastery : allMastery) {
-            double score = mastery.getMasteryScore();
-            if (score >= 3.0) {
-                masteredWords++;
-            } else if (score >= 1.0) {
-                learningWords++;
-            } else {
-                weakWords++;
-            }
-        }
+        // 分布随掌握度变化增量维护，这里只读一行
+        UserMasteryStats masteryStats = masteryStatsTracker.get(userId);
 
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalWords", totalWords);
-        stats.put("masteredWords", masteredWords);
-        stats.put("learningWords", learningWords);
-        stats.put("weakWords", weakWords);
+        stats.put("totalWords", masteryStats.getTotalWords());
+        stats.put("masteredWords", masteryStats.getMasteredWords());
+        stats.put("learningWords", masteryStats.getLearningWords());
+        stats.put("weakWords", masteryStats.getWeakWords());
         return stats;
     }
 
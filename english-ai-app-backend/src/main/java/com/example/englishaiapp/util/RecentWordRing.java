@@ -0,0 +1,97 @@
+package com.example.englishaiapp.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 最近学习单词的定长环形队列（FIFO，无重复）
+ * 再次加入已有的单词会把它移到队尾；队列满时淘汰最早的单词
+ * 序列化为紧凑的二进制：每个单词ID 8 字节，从旧到新排列
+ */
+public class RecentWordRing {
+
+    private final long[] ids;
+    private int head; // 最早的单词所在位置
+    private int size;
+
+    public RecentWordRing(int capacity) {
+        this.ids = new long[Math.max(1, capacity)];
+    }
+
+    /**
+     * 从二进制恢复；容量变小时只保留最新的几个
+     */
+    public static RecentWordRing decode(byte[] bytes, int capacity) {
+        RecentWordRing ring = new RecentWordRing(capacity);
+        if (bytes != null) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.remaining() >= Long.BYTES) {
+                ring.push(buffer.getLong());
+            }
+        }
+        return ring;
+    }
+
+    public byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(size * Long.BYTES);
+        for (int i = 0; i < size; i++) {
+            buffer.putLong(get(i));
+        }
+        return buffer.array();
+    }
+
+    public void push(long wordId) {
+        // 已存在则先移除，保证它会被移到队尾
+        int index = indexOf(wordId);
+        if (index >= 0) {
+            for (int i = index; i < size - 1; i++) {
+                set(i, get(i + 1));
+            }
+            size--;
+        }
+        // 队列已满，淘汰最早的单词
+        if (size == ids.length) {
+            head = (head + 1) % ids.length;
+            size--;
+        }
+        set(size, wordId);
+        size++;
+    }
+
+    public boolean contains(long wordId) {
+        return indexOf(wordId) >= 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 从旧到新的单词ID
+     */
+    public List<Long> toList() {
+        List<Long> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(get(i));
+        }
+        return list;
+    }
+
+    private int indexOf(long wordId) {
+        for (int i = 0; i < size; i++) {
+            if (get(i) == wordId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private long get(int i) {
+        return ids[(head + i) % ids.length];
+    }
+
+    private void set(int i, long wordId) {
+        ids[(head + i) % ids.length] = wordId;
+    }
+}
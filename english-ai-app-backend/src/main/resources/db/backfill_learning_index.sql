@@ -0,0 +1,18 @@
+-- 根据已有的学习记录初始化 users.learning_index（学习队列指针）
+-- 指针含义：ID 不大于它的单词该用户都已学过
+-- 取第一个未学过的单词ID - 1；全部学完时取最大单词ID；没有单词时为 0
+-- 只会让指针前进，可重复执行
+UPDATE users u
+SET u.learning_index = GREATEST(
+    COALESCE(u.learning_index, 0),
+    COALESCE(
+        (SELECT MIN(w.id) - 1
+         FROM words w
+         WHERE NOT EXISTS (
+             SELECT 1 FROM user_word_mastery m
+             WHERE m.user_id = u.id AND m.word_id = w.id
+         )),
+        (SELECT MAX(w.id) FROM words w),
+        0
+    )
+);
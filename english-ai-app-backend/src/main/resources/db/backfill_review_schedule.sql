@@ -0,0 +1,17 @@
+-- 为已有的学习记录初始化复习调度字段（next_due_at 为空的记录不会被安排复习）
+-- 分数 < 6 的单词立即到期；已掌握的单词按 SM-2 第一次复习（1 天后）处理
+-- 只处理 next_due_at 为空的记录，可重复执行
+-- 应用启动时由 ReviewScheduleBackfill 按当前 learning.scheduler 自动分批执行，此脚本供手动补齐使用
+UPDATE user_word_mastery
+SET next_due_at = CASE
+        WHEN mastery_score < 6 THEN COALESCE(last_learned_at, created_at)
+        ELSE DATE_ADD(COALESCE(last_learned_at, created_at), INTERVAL 1 DAY)
+    END,
+    repetitions = CASE WHEN mastery_score < 6 THEN 0 ELSE 1 END,
+    interval_days = CASE WHEN mastery_score < 6 THEN 0 ELSE 1 END
+WHERE next_due_at IS NULL;
+
+-- 使用 learning.scheduler=score 时，已掌握的单词不安排复习，改为执行：
+-- UPDATE user_word_mastery
+-- SET next_due_at = COALESCE(last_learned_at, created_at)
+-- WHERE next_due_at IS NULL AND mastery_score < 6;
@@ -27,3 +27,8 @@ ALTER TABLE user_articles
 ALTER TABLE users
   CONVERT TO CHARACTER SET utf8mb4
   COLLATE utf8mb4_general_ci;
+
+-- 确保 user_article_words 表使用 UTF-8 编码（单词匹配依赖 _ci 排序规则，不区分大小写）
+ALTER TABLE user_article_words
+  CONVERT TO CHARACTER SET utf8mb4
+  COLLATE utf8mb4_general_ci;
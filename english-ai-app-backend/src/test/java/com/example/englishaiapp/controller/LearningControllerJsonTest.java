@@ -0,0 +1,87 @@
+package com.example.englishaiapp.controller;
+
+import com.example.englishaiapp.domain.Word;
+import com.example.englishaiapp.dto.WordDTO;
+import com.example.englishaiapp.repository.WordRepository;
+import com.example.englishaiapp.service.WordDictionary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 预编码拼接的学习任务响应必须与 Spring MVC 序列化 List<WordDTO> 的结果逐字节一致
+ */
+class LearningControllerJsonTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private LearningController controller;
+    private List<Word> words;
+
+    @BeforeEach
+    void setUp() {
+        words = List.of(
+                word(1L, "quote", "带 \"引号\" 和 \\反斜杠\\", "/kwəʊt/"),
+                word(2L, "unicode", "中文释义 😀 ü", null),
+                word(3L, "control", "换行\n制表\t回车\r控制\u0001\u001f", "</script>"),
+                word(5L, "plain", "普通", "/pleɪn/"));
+
+        WordRepository wordRepository = mock(WordRepository.class);
+        when(wordRepository.findAll(any(Sort.class))).thenReturn(words);
+        WordDictionary wordDictionary = new WordDictionary();
+        ReflectionTestUtils.setField(wordDictionary, "wordRepository", wordRepository);
+        ReflectionTestUtils.setField(wordDictionary, "objectMapper", objectMapper);
+        wordDictionary.reload();
+
+        controller = new LearningController();
+        ReflectionTestUtils.setField(controller, "wordDictionary", wordDictionary);
+    }
+
+    @Test
+    void concatenatedSessionMatchesObjectMapper() throws Exception {
+        List<Word> session = List.of(words.get(2), words.get(0), words.get(3), words.get(1));
+
+        assertSameJson(session);
+    }
+
+    @Test
+    void emptyAndSingleWordSessionsMatchObjectMapper() throws Exception {
+        assertSameJson(List.of());
+        assertSameJson(List.of(words.get(1)));
+    }
+
+    @Test
+    void wordOutsideDictionaryIsEncodedOnTheFly() throws Exception {
+        assertSameJson(List.of(words.get(0), word(99L, "new", "词典外的 \"新词\"", null)));
+    }
+
+    private void assertSameJson(List<Word> session) throws Exception {
+        byte[] expected = objectMapper.writeValueAsBytes(
+                session.stream().map(WordDTO::new).collect(Collectors.toList()));
+
+        assertEquals(new String(expected, StandardCharsets.UTF_8),
+                new String(controller.concatJson(session), StandardCharsets.UTF_8));
+    }
+
+    private static Word word(Long id, String text, String meaning, String phonetic) {
+        Word word = new Word();
+        word.setId(id);
+        word.setWord(text);
+        word.setMeaning(meaning);
+        word.setPhonetic(phonetic);
+        word.setExampleSentence("He said \"" + text + "\".");
+        return word;
+    }
+}
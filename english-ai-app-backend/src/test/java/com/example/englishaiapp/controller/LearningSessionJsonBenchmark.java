@@ -0,0 +1,106 @@
+package com.example.englishaiapp.controller;
+
+import com.example.englishaiapp.domain.Word;
+import com.example.englishaiapp.dto.WordDTO;
+import com.example.englishaiapp.repository.WordRepository;
+import com.example.englishaiapp.service.WordDictionary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 学习任务响应编码：拼接预编码单词 JSON 与逐个 WordDTO 经 ObjectMapper 序列化对比
+ * 运行：mvn test-compile 后执行 main，或
+ * java -cp target/test-classes:target/classes:&lt;测试 classpath&gt; org.openjdk.jmh.Main LearningSessionJsonBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LearningSessionJsonBenchmark {
+
+    // 学习任务的单词数
+    @Param({"20", "100"})
+    private int sessionSize;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private LearningController controller;
+    private List<Word> session;
+
+    @Setup
+    public void setUp() {
+        List<Word> words = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            words.add(word(i));
+        }
+        WordRepository wordRepository = mock(WordRepository.class);
+        when(wordRepository.findAll(any(Sort.class))).thenReturn(words);
+        WordDictionary wordDictionary = new WordDictionary();
+        ReflectionTestUtils.setField(wordDictionary, "wordRepository", wordRepository);
+        ReflectionTestUtils.setField(wordDictionary, "objectMapper", objectMapper);
+        wordDictionary.reload();
+
+        controller = new LearningController();
+        ReflectionTestUtils.setField(controller, "wordDictionary", wordDictionary);
+
+        session = new ArrayList<>(sessionSize);
+        for (int i = 0; i < sessionSize; i++) {
+            session.add(words.get((i * 37) % words.size()));
+        }
+    }
+
+    @Benchmark
+    public byte[] preEncoded() {
+        return controller.concatJson(session);
+    }
+
+    @Benchmark
+    public byte[] objectMapper() throws Exception {
+        return objectMapper.writeValueAsBytes(session.stream().map(WordDTO::new).collect(Collectors.toList()));
+    }
+
+    private static Word word(long id) {
+        Word word = new Word();
+        word.setId(id);
+        word.setWord("word" + id);
+        word.setPhonetic("/wɜːd" + id + "/");
+        word.setMeaning("n. 单词；话语 " + id);
+        word.setWordClass("n.");
+        word.setExampleSentence("He said the \"word\" number " + id + " out loud.");
+        word.setExampleTranslation("他大声说出了第 " + id + " 个单词。");
+        word.setPhrase("in a word; word for word");
+        word.setTip("注意与 world 区分");
+        return word;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LearningSessionJsonBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.englishaiapp.service;
+
+import com.example.englishaiapp.domain.User;
+import com.example.englishaiapp.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 分桶树状数组排行榜：rank() 和 top() 与暴力计算对比
+ */
+class LeaderboardIndexTest {
+
+    private LeaderboardIndex leaderboard;
+
+    // 暴力计算用：用户ID -> 经验值
+    private final Map<Long, Integer> expByUser = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findExpRowsAfter(anyLong(), any(Pageable.class))).thenReturn(List.of());
+        leaderboard = new LeaderboardIndex();
+        ReflectionTestUtils.setField(leaderboard, "userRepository", userRepository);
+        ReflectionTestUtils.setField(leaderboard, "rebuildBatchSize", 1000);
+        leaderboard.rebuild();
+    }
+
+    @Test
+    void rankOnBucketBoundaries() {
+        // 桶宽 64：320、640 正好在桶边界上，60/65、315/325 跨过边界
+        long id = 1;
+        for (int exp : new int[]{0, 5, 60, 65, 65, 315, 320, 320, 325, 640, 645}) {
+            update(id++, exp);
+        }
+
+        assertRanksMatch(-1, 700);
+    }
+
+    @Test
+    void rankAfterGrow() {
+        update(1, 10);
+        update(2, 320);
+        int capacity = (int) leaderboard.metrics().get("treeCapacity");
+
+        // 远超当前容量的经验值触发扩容，之前的计数要保留
+        update(3, 5 * 64 * capacity);
+        update(4, 5 * 64 * capacity + 5);
+        assertTrue((int) leaderboard.metrics().get("treeCapacity") > capacity);
+
+        assertRanksMatch(-1, 700);
+        for (int exp : expByUser.values()) {
+            assertRanksMatch(exp - 70, exp + 70);
+        }
+    }
+
+    @Test
+    void updatesOnlyRaiseExp() {
+        update(1, 320);
+        update(2, 100);
+        update(2, 400);
+        // 乱序到达的旧值被忽略
+        leaderboard.update(user(2, 50));
+
+        assertEquals(1, leaderboard.rank(400));
+        assertEquals(2, leaderboard.rank(320));
+        assertEquals(3, leaderboard.rank(100));
+        assertEquals(2, leaderboard.totalUsers());
+        assertRanksMatch(-1, 500);
+    }
+
+    @Test
+    void randomScoresMatchBruteForce() {
+        Random random = new Random(42);
+        for (int i = 0; i < 3000; i++) {
+            long id = random.nextInt(300);
+            int exp = 5 * random.nextInt(random.nextBoolean() ? 40 : 4000);
+            update(id, Math.max(exp, expByUser.getOrDefault(id, 0)));
+            if (i % 100 == 0) {
+                int probe = random.nextInt(21_000) - 10;
+                assertEquals(bruteForceRank(probe), leaderboard.rank(probe), "exp " + probe);
+            }
+        }
+        for (int exp : expByUser.values()) {
+            assertRanksMatch(exp - 1, exp + 1);
+        }
+        assertTopMatches(50);
+        assertTopMatches(1000);
+    }
+
+    @Test
+    void topSharesRankForEqualExp() {
+        update(5, 320);
+        update(3, 640);
+        update(4, 320);
+        update(1, 0);
+        update(2, 640);
+
+        List<Map<String, Object>> top = leaderboard.top(4);
+        assertEquals(List.of(2L, 3L, 4L, 5L), top.stream().map(item -> item.get("userId")).toList());
+        assertEquals(List.of(1, 1, 3, 3), top.stream().map(item -> item.get("rank")).toList());
+        assertTopMatches(10);
+    }
+
+    private void update(long id, int exp) {
+        leaderboard.update(user(id, exp));
+        expByUser.merge(id, exp, Math::max);
+    }
+
+    private void assertRanksMatch(int fromExp, int toExp) {
+        for (int exp = fromExp; exp <= toExp; exp++) {
+            assertEquals(bruteForceRank(exp), leaderboard.rank(exp), "exp " + exp);
+        }
+    }
+
+    private int bruteForceRank(int exp) {
+        return 1 + (int) expByUser.values().stream().filter(other -> other > exp).count();
+    }
+
+    private void assertTopMatches(int limit) {
+        List<Map.Entry<Long, Integer>> sorted = new ArrayList<>(expByUser.entrySet());
+        sorted.sort(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+
+        List<Map<String, Object>> top = leaderboard.top(limit);
+        assertEquals(Math.min(limit, sorted.size()), top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(sorted.get(i).getKey(), top.get(i).get("userId"));
+            assertEquals(sorted.get(i).getValue(), top.get(i).get("exp"));
+            assertEquals(bruteForceRank(sorted.get(i).getValue()), top.get(i).get("rank"));
+        }
+    }
+
+    // 经验值全部来自签到天数（每天 5 经验）
+    private static User user(long id, int exp) {
+        User user = new User();
+        user.setId(id);
+        user.setNickname("user" + id);
+        user.setTotalWordsLearned(0);
+        user.setWordsMastered(0);
+        user.setTotalCheckinDays(exp / 5);
+        return user;
+    }
+}
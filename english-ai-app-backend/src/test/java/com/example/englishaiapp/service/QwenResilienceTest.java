@@ -0,0 +1,242 @@
+package com.example.englishaiapp.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 千问容错层：调用指向本地 HttpServer 桩，验证重试预算、对冲、熔断状态转换和截止时间
+ */
+@SpringBootTest(classes = {QwenClient.class, QwenHttpTransport.class, QwenGovernor.class, QwenResilience.class},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "qwen.api-key=test",
+                "qwen.governor.permits-per-second=1000",
+                "qwen.governor.burst=1000",
+                "qwen.governor.max-concurrent=2",
+                "qwen.resilience.chat.deadline=1s",
+                "qwen.resilience.max-attempts=3",
+                "qwen.resilience.initial-backoff=10ms",
+                "qwen.resilience.retry-ratio=0.1",
+                "qwen.resilience.max-retry-tokens=2",
+                "qwen.resilience.hedge.percentile=0.5",
+                "qwen.resilience.hedge.min-samples=5",
+                "qwen.resilience.circuit.window-size=4",
+                "qwen.resilience.circuit.min-calls=4",
+                "qwen.resilience.circuit.failure-rate=0.5",
+                "qwen.resilience.circuit.open-duration=300ms"
+        })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class QwenResilienceTest {
+
+    private static final String OK_BODY = "{\"output\":{\"choices\":[{\"message\":{\"content\":\"ok\"}}]}}";
+
+    /**
+     * 桩服务对第 n 个请求（从 1 开始）的响应
+     */
+    private record StubResponse(int status, long delayMillis) {}
+
+    private static HttpServer server;
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static volatile IntFunction<StubResponse> responder;
+
+    @Autowired
+    private QwenClient qwenClient;
+
+    @Autowired
+    private QwenResilience resilience;
+
+    @Autowired
+    private QwenGovernor governor;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/generation", exchange -> {
+            StubResponse response = responder.apply(requests.incrementAndGet());
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(response.delayMillis());
+                byte[] body = (response.status() == 200 ? OK_BODY : "{}").getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(response.status(), body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException | IOException e) {
+                // 客户端已取消（对冲的另一个请求或截止时间到）
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @DynamicPropertySource
+    static void qwenProperties(DynamicPropertyRegistry registry) {
+        registry.add("qwen.api-url", () -> "http://127.0.0.1:" + server.getAddress().getPort() + "/generation");
+    }
+
+    @BeforeEach
+    void resetStub() {
+        requests.set(0);
+        responder = n -> new StubResponse(200, 0);
+    }
+
+    @Test
+    void retriesStopWhenBudgetIsExhausted() {
+        responder = n -> new StubResponse(500, 0);
+
+        // 令牌 2 + 0.1：第一次调用重试两次
+        assertThrows(RuntimeException.class, this::chat);
+        assertEquals(3, requests.get());
+
+        // 剩余 0.2 个令牌，不够一次重试
+        assertThrows(RuntimeException.class, this::chat);
+        assertEquals(4, requests.get());
+        assertEquals(2L, resilience.metrics().get("retries"));
+        assertEquals(1L, resilience.metrics().get("retriesDenied"));
+    }
+
+    @Test
+    void retryRecoversFromTransientFailure() {
+        responder = n -> new StubResponse(n == 1 ? 503 : 200, 0);
+
+        assertEquals("ok", chat());
+        assertEquals(2, requests.get());
+        assertEquals(1L, resilience.metrics().get("retries"));
+    }
+
+    @Test
+    void slowAttemptIsHedged() {
+        // 先积累延迟样本，对冲延迟取中位数
+        for (int i = 0; i < 5; i++) {
+            assertEquals("ok", chat());
+        }
+        int slow = requests.get() + 1;
+        responder = n -> new StubResponse(200, n == slow ? 5_000 : 0);
+
+        long start = System.nanoTime();
+        assertEquals("ok", chat());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 900, "对冲请求应先返回，实际耗时 " + elapsedMillis + "ms");
+        assertEquals(1L, resilience.metrics().get("hedges"));
+        assertEquals(slow + 1, requests.get());
+    }
+
+    @Test
+    void circuitOpensThenProbeClosesIt() throws InterruptedException {
+        responder = n -> new StubResponse(500, 0);
+        assertThrows(RuntimeException.class, this::chat); // 3 次失败
+        assertThrows(RuntimeException.class, this::chat); // 第 4 次失败，失败率达到阈值
+        assertEquals("OPEN", resilience.metrics().get("circuitState"));
+
+        // 熔断期间直接失败，不发请求
+        int sent = requests.get();
+        QwenApiException shortCircuited = rootQwenException(assertThrows(RuntimeException.class, this::chat));
+        assertEquals(503, shortCircuited.getStatusCode());
+        assertEquals(sent, requests.get());
+        assertEquals(1L, resilience.metrics().get("shortCircuited"));
+
+        // 冷却后探测失败：重新熔断
+        Thread.sleep(350);
+        assertThrows(RuntimeException.class, this::chat);
+        assertEquals(sent + 1, requests.get());
+        assertEquals("OPEN", resilience.metrics().get("circuitState"));
+
+        // 再次冷却后探测成功：恢复
+        Thread.sleep(350);
+        responder = n -> new StubResponse(200, 0);
+        assertEquals("ok", chat());
+        assertEquals("CLOSED", resilience.metrics().get("circuitState"));
+        assertEquals("ok", chat());
+    }
+
+    @Test
+    void deadlineCoversAllRetries() {
+        // 每次尝试 450ms 后失败：三次完整尝试需要 1.35s 以上，截止时间 1s 时第三次尝试要么不发、要么被取消
+        responder = n -> new StubResponse(500, 450);
+
+        long start = System.nanoTime();
+        assertThrows(RuntimeException.class, this::chat);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 1_250, "整次调用应在截止时间 1s 附近结束，实际耗时 " + elapsedMillis + "ms");
+        assertTrue(requests.get() >= 2, "截止时间内应已重试");
+    }
+
+    @Test
+    void slowUpstreamIsCutAtDeadline() {
+        responder = n -> new StubResponse(200, 5_000);
+
+        long start = System.nanoTime();
+        assertThrows(RuntimeException.class, this::chat);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 1_300, "应在截止时间 1s 附近失败，实际耗时 " + elapsedMillis + "ms");
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void localBackpressureIsNotRetriedOrCounted() {
+        // 占满本地名额：调用在截止时间内拿不到名额
+        List<QwenGovernor.Permit> held = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            held.add(governor.acquire(QwenGovernor.Lane.INTERACTIVE));
+        }
+        try {
+            for (int i = 0; i < 5; i++) {
+                assertTrue(rootQwenException(assertThrows(RuntimeException.class, this::chat))
+                        instanceof QwenBackpressureException);
+            }
+        } finally {
+            held.forEach(QwenGovernor.Permit::close);
+        }
+
+        assertEquals(0, requests.get());
+        assertEquals(0L, resilience.metrics().get("retries"));
+        assertEquals(5L, resilience.metrics().get("localBackpressure"));
+        assertEquals("CLOSED", resilience.metrics().get("circuitState"));
+        assertEquals("ok", chat());
+    }
+
+    private String chat() {
+        return qwenClient.chat("system", "hello");
+    }
+
+    private static QwenApiException rootQwenException(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof QwenApiException api) {
+                return api;
+            }
+        }
+        throw new AssertionError("没有 QwenApiException", e);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.englishaiapp.service.impl;
+
+import com.example.englishaiapp.domain.UserArticle;
+import com.example.englishaiapp.dto.ArticleResponse;
+import com.example.englishaiapp.repository.UserArticleWordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 预编码文章响应填入答题状态后，必须与 Spring MVC 序列化 ArticleResponse 的结果逐字节一致
+ */
+class ArticleServiceImplJsonTest {
+
+    private static final long ARTICLE_ID = 42L;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private ArticleServiceImpl articleService;
+    private UserArticleWordRepository userArticleWordRepository;
+
+    @BeforeEach
+    void setUp() {
+        userArticleWordRepository = mock(UserArticleWordRepository.class);
+        articleService = new ArticleServiceImpl();
+        ReflectionTestUtils.setField(articleService, "userArticleWordRepository", userArticleWordRepository);
+        ReflectionTestUtils.setField(articleService, "objectMapper", objectMapper);
+    }
+
+    @Test
+    void filledResponseMatchesObjectMapper() throws Exception {
+        assertSameJson(response(), Arrays.asList("unused", "correct", "wrong", null));
+    }
+
+    @Test
+    void unexpectedStatesAreEscapedLikeObjectMapper() throws Exception {
+        assertSameJson(response(), List.of("we\"ird", "中文\\状态", "line\nbreak\u0001", ""));
+    }
+
+    @Test
+    void stateCountMismatchFallsBack() {
+        UserArticle article = article(response());
+        when(userArticleWordRepository.findStatesByArticleId(ARTICLE_ID)).thenReturn(List.of("unused"));
+
+        assertNull(articleService.fillResponseJson(article));
+    }
+
+    private void assertSameJson(ArticleResponse response, List<String> states) throws Exception {
+        UserArticle article = article(response);
+        when(userArticleWordRepository.findStatesByArticleId(ARTICLE_ID)).thenReturn(states);
+
+        response.setArticleId(ARTICLE_ID);
+        for (int i = 0; i < states.size(); i++) {
+            // 状态为空时读取端按 unused 处理
+            response.getWordBank().get(i).setState(states.get(i) == null ? "unused" : states.get(i));
+        }
+
+        assertEquals(objectMapper.writeValueAsString(response), articleService.fillResponseJson(article));
+    }
+
+    private UserArticle article(ArticleResponse response) {
+        UserArticle article = new UserArticle();
+        article.setId(ARTICLE_ID);
+        article.setResponseJson(articleService.encodeResponseJson(response));
+        return article;
+    }
+
+    private static ArticleResponse response() {
+        ArticleResponse response = new ArticleResponse();
+        response.setTitle("标题 \"Quoted\" </script>");
+        response.setContent("第一段\n\t第二段 \\ 😀 \u0001");
+        List<ArticleResponse.WordItem> wordBank = new ArrayList<>();
+        wordBank.add(new ArticleResponse.WordItem(1L, "apple", "苹果", 0));
+        wordBank.add(new ArticleResponse.WordItem(2L, "say \"hi\"", "打招呼\n", 3));
+        wordBank.add(new ArticleResponse.WordItem(3L, "naïve", null, null));
+        wordBank.add(new ArticleResponse.WordItem(4L, "\u0001", "控制字符", 5));
+        response.setWordBank(wordBank);
+        return response;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.englishaiapp.service.impl;
+
+import com.example.englishaiapp.domain.User;
+import com.example.englishaiapp.domain.UserWordMastery;
+import com.example.englishaiapp.domain.Word;
+import com.example.englishaiapp.dto.LearningResult;
+import com.example.englishaiapp.service.ArticleService;
+import com.example.englishaiapp.service.LeaderboardIndex;
+import com.example.englishaiapp.service.LearningService;
+import com.example.englishaiapp.service.LearningSessionCache;
+import com.example.englishaiapp.service.MasteryStatsTracker;
+import com.example.englishaiapp.service.WordDictionary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * 用 Hibernate 统计核对学习接口实际执行的 SQL 语句数
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never"
+})
+@Import({LearningServiceImpl.class, Sm2ReviewScheduler.class, WordDictionary.class, LearningSessionCache.class,
+        MasteryStatsTracker.class, LeaderboardIndex.class, JacksonAutoConfiguration.class})
+class LearningServiceStatementCountTest {
+
+    private static final int REVIEW_WORDS = 10;
+    private static final int NEW_WORDS = 5;
+
+    @Autowired
+    private LearningService learningService;
+
+    @Autowired
+    private LearningSessionCache learningSessionCache;
+
+    @Autowired
+    private WordDictionary wordDictionary;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private ArticleService articleService;
+
+    private Statistics statistics;
+    private User user;
+    private List<Word> words;
+    private List<UserWordMastery> dueMasteries;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        user = new User();
+        user.setUsername("learner");
+        user.setEmail("learner@example.com");
+        user.setPassword("secret");
+        entityManager.persist(user);
+
+        words = new ArrayList<>();
+        for (int i = 0; i < REVIEW_WORDS + NEW_WORDS; i++) {
+            Word word = new Word();
+            word.setWord("word" + i);
+            word.setMeaning("含义 " + i);
+            entityManager.persist(word);
+            words.add(word);
+        }
+
+        dueMasteries = new ArrayList<>();
+        for (int i = 0; i < REVIEW_WORDS; i++) {
+            UserWordMastery mastery = new UserWordMastery(user.getId(), words.get(i).getId(), 1);
+            mastery.setLastLearnedAt(LocalDateTime.now().minusDays(2));
+            mastery.setNextDueAt(LocalDateTime.now().minusHours(1));
+            entityManager.persist(mastery);
+            dueMasteries.add(mastery);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        wordDictionary.reload();
+    }
+
+    @Test
+    void prefetchedSessionIsOneBulkUpdate() {
+        long token = learningSessionCache.beginPrefetch(user.getId());
+        learningSessionCache.put(user.getId(), token, REVIEW_WORDS,
+                learningService.prepareLearningSession(user.getId(), REVIEW_WORDS));
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<Word> session = learningService.getLearningSession(user.getId(), REVIEW_WORDS);
+        entityManager.flush();
+
+        assertEquals(REVIEW_WORDS, session.size());
+        // 预取命中时只剩一条批量更新 lastSeenAt 的 UPDATE
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+        assertLastSeenAtUpdated();
+    }
+
+    @Test
+    void coldSessionHasFixedStatementCount() {
+        statistics.clear();
+
+        // 复习单词不够时补充新词，走完整的组装路径
+        List<Word> session = learningService.getLearningSession(user.getId(), REVIEW_WORDS + NEW_WORDS);
+        entityManager.flush();
+
+        assertEquals(REVIEW_WORDS + NEW_WORDS, session.size());
+        // 加载用户、查询到期单词、查询候选新词中已学过的、学习指针越过已学的前 10 个单词、批量更新 lastSeenAt，
+        // 没有逐个单词的查询或更新
+        assertEquals(5, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+        assertLastSeenAtUpdated();
+    }
+
+    @Test
+    void submitLoadsAndSavesUserOnce() {
+        statistics.clear();
+
+        // 新词（首次学习会累计 totalWordsLearned）和已有掌握度的复习词各提交一次
+        learningService.submitLearningResult(user.getId(), words.get(REVIEW_WORDS).getId(), true);
+        entityManager.flush();
+        assertUserLoadedAndUpdatedOnce();
+
+        entityManager.clear();
+        statistics.clear();
+        learningService.submitLearningResult(user.getId(), dueMasteries.get(0).getWordId(), false);
+        entityManager.flush();
+        assertUserLoadedAndUpdatedOnce();
+    }
+
+    @Test
+    void batchLoadsAndSavesUserOnce() {
+        statistics.clear();
+
+        LocalDateTime answeredAt = LocalDateTime.now().minusMinutes(1);
+        List<LearningResult> results = new ArrayList<>();
+        for (int i = 0; i < words.size(); i++) {
+            results.add(new LearningResult(words.get(i).getId(), i % 2 == 0, answeredAt.plusSeconds(i)));
+        }
+        learningService.applyLearningResults(user.getId(), results);
+        entityManager.flush();
+
+        assertUserLoadedAndUpdatedOnce();
+    }
+
+    private void assertUserLoadedAndUpdatedOnce() {
+        EntityStatistics userStatistics = statistics.getEntityStatistics(User.class.getName());
+        assertEquals(1, userStatistics.getLoadCount());
+        assertEquals(1, userStatistics.getUpdateCount());
+    }
+
+    private void assertLastSeenAtUpdated() {
+        entityManager.clear();
+        for (UserWordMastery mastery : dueMasteries) {
+            assertNotNull(entityManager.find(UserWordMastery.class, mastery.getId()).getLastSeenAt());
+        }
+    }
+}